@@ -0,0 +1,91 @@
+package Controller;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import Model.AabbBatch;
+import Model.Bubble;
+import Model.CollisionDetection;
+import Model.GameObject;
+import Model.LevelContext;
+import Model.LevelMap;
+import Model.MovableObject.Direction;
+import Model.Utility;
+
+/**
+ * CollisionBenchmark measures the narrowphase of a bubble storm, where a single hitbox
+ * has dozens of candidates: it compares the current per-object path of
+ * {@link CollisionDetection}, a plain loop of {@link Rectangle#intersects} and the
+ * scalar batch kernel of {@link AabbBatch}.
+ * It is a standalone program and it is not part of the game.
+ */
+public class CollisionBenchmark {
+
+    private static final int CANDIDATES = 64;
+    private static final int ROUNDS = 200_000;
+    private static final int WARMUP = 50_000;
+
+    public static void main(String[] args) {
+        // The contacts found by the collision detection go to the buffer of a level
+        LevelContext.getInstance().setLevel(LevelMap.LEVEL_ONE.startingObjects());
+        Random r = new Random(42);
+        List<GameObject> candidates = new ArrayList<>();
+        AabbBatch batch = new AabbBatch();
+        for (int i = 0; i < CANDIDATES; i++) {
+            Bubble b = new Bubble(r.nextInt(Utility.WIDTH / 4), r.nextInt(Utility.HEIGHT / 4), Direction.RIGHT);
+            candidates.add(b);
+            batch.add(b);
+        }
+        Bubble probe = new Bubble(40, 40, Direction.RIGHT);
+        Rectangle box = probe.getHitbox();
+        int[] hits = new int[CANDIDATES];
+
+        // Warm up the three paths before measuring them
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += detectionPath(probe, box, candidates) + rectanglePath(box, candidates) + batch.intersect(box, hits);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) sink += detectionPath(probe, box, candidates);
+        long detection = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) sink += rectanglePath(box, candidates);
+        long rectangle = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) sink += batch.intersect(box, hits);
+        long kernel = System.nanoTime() - start;
+
+        System.out.printf("%d candidates, %d rounds (checksum %d)%n", CANDIDATES, ROUNDS, sink);
+        System.out.printf("CollisionDetection : %8.1f ns/round%n", (double) detection / ROUNDS);
+        System.out.printf("Rectangle.intersects: %8.1f ns/round%n", (double) rectangle / ROUNDS);
+        System.out.printf("AabbBatch kernel    : %8.1f ns/round%n", (double) kernel / ROUNDS);
+    }
+
+    /**
+     * The path used by the game objects today: one CollisionDetection per candidate.
+     */
+    private static int detectionPath(Bubble probe, Rectangle box, List<GameObject> candidates) {
+        int count = 0;
+        for (GameObject obj : candidates) {
+            if (CollisionDetection.collisionDetection(probe, box, obj).isCollisionDetected()) count++;
+        }
+        LevelContext.getInstance().getLevel().getContacts().clear();
+        return count;
+    }
+
+    /**
+     * A plain loop over the hitboxes of the candidates.
+     */
+    private static int rectanglePath(Rectangle box, List<GameObject> candidates) {
+        int count = 0;
+        for (GameObject obj : candidates) {
+            if (box.intersects(obj.getHitbox())) count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,169 @@
+package Controller;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import Model.Blubba;
+import Model.Bubble;
+import Model.Enemy;
+import Model.GameObject;
+import Model.LevelComponent;
+import Model.LevelMap;
+import Model.Mighta;
+import Model.MovableObject.Direction;
+import Model.Player;
+import Model.PowerUp;
+import Model.ProjectileSystem;
+import Model.Wall;
+import Model.ZenChan;
+
+/**
+ * FootprintReport estimates how much memory each type of game object takes, in the way
+ * JOL lays out objects on a 64-bit HotSpot JVM with compressed pointers: a 12 byte header,
+ * 4 byte references and sizes rounded up to 8 bytes.
+ * For each type it prints the size of the object itself and the size including the objects
+ * it owns, like its hitbox. An object is owned when two instances of the type don't share it:
+ * shared ones, like the enum constants and the enemy behaviours, are flyweights and are not counted.
+ * Shots are entries of the arrays of the {@link ProjectileSystem}, so for them it prints the bytes of an entry.
+ * It then adds up the objects each level starts with.
+ * It is a standalone program and it is not part of the game.
+ */
+public class FootprintReport {
+
+    private static final int HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int ALIGNMENT = 8;
+
+    public static void main(String[] args) {
+        System.out.printf("%-8s %8s %8s%n", "Type", "Shallow", "Owned");
+        row("Player", Player::new);
+        row("ZenChan", () -> new ZenChan(40, 40));
+        row("Mighta", () -> new Mighta(40, 40));
+        row("Blubba", () -> new Blubba(40, 40));
+        row("Bubble", () -> new Bubble(40, 40, Direction.RIGHT));
+        row("PowerUp", () -> PowerUp.PowerUpFactory.createPowerUp(40, 40, PowerUp.Type.CAKE));
+        row("Wall", () -> new Wall(40, 40, Wall.WallType.TYPE_ONE));
+        System.out.printf("%-8s %8d %8s%n", "Shot", shot(ProjectileSystem.class), "-");
+
+        System.out.println();
+        System.out.printf("%-12s %6s %8s %8s%n", "Level", "Walls", "Enemies", "Bytes");
+        for (LevelMap level : LevelMap.values()) {
+            LevelComponent c = level.startingObjects();
+            long bytes = total(c.getWalls()) + total(c.getEnemies());
+            System.out.printf("%-12s %6d %8d %8d%n", level, c.getWalls().size(), c.getEnemies().size(), bytes);
+        }
+    }
+
+    /**
+     * Prints the sizes of a type of object.
+     */
+    private static void row(String name, Supplier<? extends GameObject> factory) {
+        GameObject a = factory.get();
+        GameObject b = factory.get();
+        System.out.printf("%-8s %8d %8d%n", name, shallow(a.getClass()), owned(a, b, new IdentityHashMap<>()));
+    }
+
+    /**
+     * Returns the bytes a single entry takes in the arrays of a struct of arrays.
+     */
+    private static long shot(Class<?> type) {
+        long bytes = 0;
+        for (Field f : type.getDeclaredFields()) {
+            if (!Modifier.isStatic(f.getModifiers()) && f.getType().isArray()) bytes += size(f.getType().getComponentType());
+        }
+        return bytes;
+    }
+
+    /**
+     * Adds up the sizes, owned objects included, of a list of objects.
+     */
+    private static long total(List<? extends GameObject> list) {
+        long bytes = 0;
+        for (int i = 0; i < list.size(); i++) {
+            // Any other object of the level tells the shared parts apart, the first one compares with the second
+            GameObject other = list.get(i == 0 ? list.size() - 1 : 0);
+            bytes += owned(list.get(i), other, new IdentityHashMap<>());
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the size of an object with the objects it owns, comparing its fields with
+     * the same fields of another object of the same type to find out what is shared.
+     */
+    private static long owned(Object obj, Object sample, Map<Object, Boolean> seen) {
+        if (seen.put(obj, Boolean.TRUE) != null) return 0;
+        Class<?> type = obj.getClass();
+        if (type.isArray()) return array(obj, seen);
+        long bytes = shallow(type);
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Field f : c.getDeclaredFields()) {
+                if (Modifier.isStatic(f.getModifiers()) || f.getType().isPrimitive()) continue;
+                Object value = read(f, obj);
+                Object other = sample != null && f.getDeclaringClass().isInstance(sample) ? read(f, sample) : null;
+                if (value == null || value == other || value instanceof Enum || value instanceof Class) continue;
+                bytes += owned(value, other != null && other.getClass() == value.getClass() ? other : null, seen);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the size of an array with the objects its elements refer to.
+     */
+    private static long array(Object array, Map<Object, Boolean> seen) {
+        Class<?> element = array.getClass().getComponentType();
+        int length = Array.getLength(array);
+        long bytes = align(ARRAY_HEADER + (long) length * size(element));
+        if (!element.isPrimitive()) {
+            for (int i = 0; i < length; i++) {
+                Object value = Array.get(array, i);
+                if (value != null && !(value instanceof Enum)) bytes += owned(value, null, seen);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the size of an object of a type, without the objects it refers to.
+     */
+    private static long shallow(Class<?> type) {
+        long bytes = HEADER;
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Field f : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(f.getModifiers())) bytes += size(f.getType());
+            }
+        }
+        return align(bytes);
+    }
+
+    /**
+     * Reads a field, or returns null when the JVM doesn't let the report look inside the class.
+     */
+    private static Object read(Field f, Object obj) {
+        try {
+            f.setAccessible(true);
+            return f.get(obj);
+        } catch (RuntimeException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static int size(Class<?> type) {
+        if (type == long.class || type == double.class) return 8;
+        if (type == int.class || type == float.class) return 4;
+        if (type == short.class || type == char.class) return 2;
+        if (type == byte.class || type == boolean.class) return 1;
+        return REFERENCE;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+}
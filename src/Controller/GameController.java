@@ -4,28 +4,40 @@ import java.awt.Container;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import Model.Boulder;
+import Model.AiScheduler;
+import Model.Broadphase;
+import Model.Blubba;
 import Model.Bubble;
+import Model.CollisionMask;
+import Model.CommandBuffer;
+import Model.ElementBubble;
+import Model.ElementGrid;
 import Model.Enemy;
 import Model.GameObject;
 import Model.LevelComponent;
+import Model.LevelContext;
 import Model.LevelMap;
 import Model.Mighta;
 import Model.MovableObject;
+import Model.ObjectPool;
 import Model.Player;
 import Model.PlayerObserver;
 import Model.PowerUp;
+import Model.ProjectileSystem;
+import Model.SpatialQuery;
+import Model.TileGrid;
 import Model.User;
 import Model.UserDatabase;
 import Model.Utility;
 import Model.Wall;
+import Model.ZenChan;
+import View.GameImage;
 import View.GameOverPanel;
 import View.GamePanel;
 import View.MainFrame;
@@ -65,6 +77,12 @@ public class GameController implements Runnable,PlayerObserver{
     private File file;
     private Timer levelChangeTimer;
     private boolean levelChangeScheduled;
+
+    /** Whether the level has to change at the start of the next tick, set by the timer or the key handler. */
+    private volatile boolean levelChangeRequested;
+
+    /** Whether the player asked to shoot a bubble since the last tick, set by the key handler. */
+    private volatile boolean shootRequested;
     // UI components
     private MainFrame frame;
     private StartPanel startPanel;
@@ -90,6 +108,14 @@ public class GameController implements Runnable,PlayerObserver{
     private List<Wall> walls;
     private List<Enemy> enemies;
     private List<GameObject> objects;
+    private Broadphase broadphase;
+    private LevelComponent level;
+    private AiScheduler aiScheduler;
+    private List<GameObject> colliders;
+    private CommandBuffer commands;
+    private ObjectPool<Bubble> bubblePool;
+    private ProjectileSystem projectiles;
+    private final int BUBBLES_PER_LEVEL = 16;
     
     /**
      * Returns the singleton instance of the GameController.
@@ -121,11 +147,18 @@ public class GameController implements Runnable,PlayerObserver{
         }
         levelChangeTimer = new Timer();
         levelChangeScheduled = false;
+        commands = new CommandBuffer();
+        bubblePool = new ObjectPool<>(() -> new Bubble(0, 0, MovableObject.Direction.RIGHT));
+        projectiles = new ProjectileSystem();
+        colliders = new ArrayList<>();
+        // The first level is read while the player goes through the menus
+        LevelMap.LEVEL_ONE.prefetch();
         // Initialize key handler and UI components
         keyHandler = KeyHandler.getInstance();
         frame = new MainFrame();
 
         initializePanels();
+        registerCollisionMasks();
 
         // Show the start panel and set initial game state
         frame.show(startPanel.getName());
@@ -175,6 +208,43 @@ public class GameController implements Runnable,PlayerObserver{
         frame.addContainer(rank, rank.getName());
     }
 
+    /**
+     * Builds the pixel masks used for precise collisions from the sprites of the game,
+     * one per type of object, covering all the frames of its animations.
+     */
+    private void registerCollisionMasks() {
+        CollisionMask.register(Player.class, mask(24, 24, GameImage.BOB_RIGHT_ONE, GameImage.BOB_RIGHT_TWO,
+                GameImage.BOB_LEFT_ONE, GameImage.BOB_LEFT_TWO, GameImage.BOB_MOVING_R1, GameImage.BOB_MOVING_R2,
+                GameImage.BOB_MOVING_L1, GameImage.BOB_MOVING_L2));
+        CollisionMask.register(ZenChan.class, mask(20, 20, GameImage.ZENCHAN_R1, GameImage.ZENCHAN_R2,
+                GameImage.ZENCHAN_L1, GameImage.ZENCHAN_L2));
+        CollisionMask.register(Mighta.class, mask(20, 20, GameImage.MIGHTA_R1, GameImage.MIGHTA_R2,
+                GameImage.MIGHTA_L1, GameImage.MIGHTA_L2));
+        CollisionMask.register(Blubba.class, mask(20, 20, GameImage.BLUBBA_R1, GameImage.BLUBBA_R2,
+                GameImage.BLUBBA_L1, GameImage.BLUBBA_L2));
+        CollisionMask.register(Bubble.class, mask(20, 20, GameImage.BUBBLE1, GameImage.BUBBLE2,
+                GameImage.CAUGHT_ZEN1, GameImage.CAUGHT_ZEN2, GameImage.CAUGHT_MIGHTA1, GameImage.CAUGHT_MAIGHTA2,
+                GameImage.CAUGHT_BLUBBA1, GameImage.CAUGHT_BLUBBA2));
+        for (PowerUp.Type type : PowerUp.Type.values()) {
+            CollisionMask.register(type, mask(20, 20, GameImage.valueOf(type.name())));
+        }
+    }
+
+    /**
+     * Builds the union of the masks of some images drawn at the given size
+     * @param width the width the images are drawn with
+     * @param height the height the images are drawn with
+     * @param images the images
+     * @return the mask covering all the images
+     */
+    private CollisionMask mask(int width, int height, GameImage... images) {
+        CollisionMask mask = CollisionMask.fromImage(images[0].getImage(), width, height);
+        for (int i = 1; i < images.length; i++) {
+            mask = mask.union(CollisionMask.fromImage(images[i].getImage(), width, height));
+        }
+        return mask;
+    }
+
     /**
      * Gets the current user
      * @return currentUser
@@ -214,6 +284,46 @@ public class GameController implements Runnable,PlayerObserver{
             .collect(Collectors.toList()); // Collect into a single list
     }
 
+    /**
+     * Collects the components the moving objects can collide with: all of them but the enemies caught
+     * in a bubble, which are attached to it and only move with it.
+     * The list is filled once at the start of the tick and shared by every mover: the objects
+     * spawned and destroyed during the tick only change the lists at its end
+     */
+    private void collectColliders() {
+    	colliders.clear();
+    	colliders.add(player);
+    	colliders.addAll(walls);
+    	for (Enemy e : enemies) {
+    		if (!e.isAttached()) colliders.add(e);
+    	}
+    	colliders.addAll(objects);
+    }
+
+    /**
+     * Gets the scheduler of the enemies' AI, holding how many enemies were in each tier during the last tick
+     * @return aiScheduler
+     */
+    public AiScheduler getAiScheduler() {
+        return aiScheduler;
+    }
+
+    /**
+     * Gets the shots flying in the level
+     * @return projectiles
+     */
+    public ProjectileSystem getProjectiles() {
+        return projectiles;
+    }
+
+    /**
+     * Gets the water and the fire running in the level
+     * @return elements
+     */
+    public ElementGrid getElements() {
+        return level.getElements();
+    }
+
     /**
      * Gets the menu panel
      * @return menuPanel
@@ -255,31 +365,44 @@ public class GameController implements Runnable,PlayerObserver{
     }
     
     /**
-     * Retrieves the level component for a given level.
+     * Retrieves the level component for a given level, created from the prototype of the level,
+     * and starts reading the next level in the background so that it is ready when this one ends.
      *
      * @param level the level number
      * @return the LevelComponent for the specified level
      */
     private LevelComponent getLevelComponent(int level) {
+    	LevelComponent c = getLevelMap(level).startingObjects();
+    	if(level < MAX_LEVEL) getLevelMap(level + 1).prefetch();
+    	return c;
+    }
+
+    /**
+     * Retrieves the map of a given level.
+     *
+     * @param level the level number
+     * @return the LevelMap of the specified level
+     */
+    private LevelMap getLevelMap(int level) {
     	switch(level) {
     		case 1:
-    			return LevelMap.LEVEL_ONE.startingObjects();
+    			return LevelMap.LEVEL_ONE;
     		case 2:
-    			return LevelMap.LEVEL_TWO.startingObjects();
+    			return LevelMap.LEVEL_TWO;
     		case 3:
-    			return LevelMap.LEVEL_THREE.startingObjects();
+    			return LevelMap.LEVEL_THREE;
     		case 4:
-    			return LevelMap.LEVEL_FOUR.startingObjects();
+    			return LevelMap.LEVEL_FOUR;
     		case 5:
-    			return LevelMap.LEVEL_FIVE.startingObjects();
+    			return LevelMap.LEVEL_FIVE;
     		case 6:
-    			return LevelMap.LEVEL_SIX.startingObjects();
+    			return LevelMap.LEVEL_SIX;
     		case 7:
-    			return LevelMap.LEVEL_SEVEN.startingObjects();
+    			return LevelMap.LEVEL_SEVEN;
     		case 8:
-    			return LevelMap.LEVEL_EIGHT.startingObjects();
+    			return LevelMap.LEVEL_EIGHT;
     		default:
-    			throw new IllegalArgumentException("Invalid level: "+currentLevel);
+    			throw new IllegalArgumentException("Invalid level: "+level);
     	}
     }
     
@@ -288,13 +411,17 @@ public class GameController implements Runnable,PlayerObserver{
      * Sets the state to RUNNING and plays background music.
      */
     public void startGame() {
+        if (player != null) {
+            player.dispose();
+            disposeLevel();
+        }
         player = new Player();
         player.addPlayerObserver(instance);
+        levelChangeRequested = false;
         currentLevel = 1;
-        LevelComponent c = getLevelComponent(currentLevel);
-        walls = c.getWalls();
-        enemies = c.getEnemies();
-        objects = new ArrayList<GameObject>();
+        broadphase = new Broadphase();
+        aiScheduler = new AiScheduler();
+        enterLevel(getLevelComponent(currentLevel));
         
         points = 0;
         
@@ -308,10 +435,38 @@ public class GameController implements Runnable,PlayerObserver{
     }
     
     /**
-     * Changes the current level in the game. If the maximum level is reached, 
-     * transitions to the victory state.
+     * Makes a level the one being played, both when the game starts and when the level changes.
+     * The objects and the per-level systems, the contacts, the chain reaction and the elements, come new with the level;
+     * what the controller keeps from one level to the next is emptied here.
+     * @param c the level to play
+     */
+    private void enterLevel(LevelComponent c) {
+    	level = c;
+    	walls = c.getWalls();
+    	enemies = c.getEnemies();
+    	commands.clear();
+    	projectiles.clear();
+    	objects = new ArrayList<GameObject>(c.getBubbles());
+    	prefillPools();
+    	SpatialQuery.getInstance().setLevel(c, broadphase);
+    	LevelContext.getInstance().setLevel(c);
+    }
+
+    /**
+     * Asks to change the current level in the game. It can be called from any thread, like the timer
+     * or the key handler: the level changes at the start of the next tick, on the game loop,
+     * so nothing of the level is replaced while a tick is using it.
      */
     public void changeLevel() {
+    	levelChangeRequested = true;
+    }
+
+    /**
+     * Changes the current level in the game. If the maximum level is reached, 
+     * transitions to the victory state. Runs on the game loop, between two ticks.
+     */
+    private void nextLevel() {
+    	levelChangeScheduled = false;  // Reset for future level changes
     	currentLevel++;
     	if(currentLevel > MAX_LEVEL) {
     		audioManager.stopBackgroundMusic();
@@ -328,10 +483,8 @@ public class GameController implements Runnable,PlayerObserver{
     	}else {
     		try {
         		repositionPlayer(20, Utility.HEIGHT - 40);
-            	LevelComponent c = getLevelComponent(currentLevel);
-            	walls = c.getWalls();
-            	enemies = c.getEnemies();
-            	objects = new ArrayList<GameObject>();
+            	disposeLevel();
+            	enterLevel(getLevelComponent(currentLevel));
             	gamePanel.updateComponents();
 			} catch (Exception e) {
 				e.printStackTrace();
@@ -410,9 +563,18 @@ public class GameController implements Runnable,PlayerObserver{
     }
     
     /**
-     * If the player attacks, adds a Bubble to the game objects
+     * Asks the player to shoot a bubble. The key handler doesn't run on the game loop,
+     * so the bubble is shot at the start of the next tick
      */
     public void playerBubble() {
+    	shootRequested = true;
+    }
+
+    /**
+     * If the player attacks, adds a Bubble taken from the pool to the game objects.
+     * Runs on the game loop, the only thread using the pool
+     */
+    private void shootBubble() {
     	if(player.attack()) {
             double x = 0;
             if (player.getDirection() == MovableObject.Direction.RIGHT) {
@@ -420,8 +582,9 @@ public class GameController implements Runnable,PlayerObserver{
             } else {
                 x = player.getX() - player.getWidth();
             }
-            objects.add(new Bubble(x, player.getY(), player.getDirection()));
-            gamePanel.updateComponents();
+            Bubble b = bubblePool.obtain();
+            b.reset(x, player.getY(), player.getDirection());
+            commands.spawn(b);
     	}
     }
     
@@ -450,43 +613,58 @@ public class GameController implements Runnable,PlayerObserver{
     
     /**
      * For all game objects currently in the level it updates their positions,
-     * controls if the enemies are attacking and, if they're to be destroyed, removes them from the list
+     * controls if the enemies are attacking and, if they're to be destroyed, asks for their removal from the list.
+     * Objects spawned or destroyed are only added or removed at the end of the tick
      * @param <T> the type of game objects to check
      * @param list of games object to update
      */
     private <T extends GameObject> void updatePosition(List<T> list) {
-    	// Using an iterator for bubbles
-        for (Iterator<T> iterator = list.iterator(); iterator.hasNext(); ) {
-            T o = iterator.next();
+        for (int index = 0; index < list.size(); index++) {
+            T o = list.get(index);
             if(o.isToDestroy()) {
             	if(o instanceof Enemy) {
-            		int[] p = Utility.randomPosition(getComponents());
-                    objects.add(PowerUp.PowerUpFactory.createRandomPowerUp(p[0],p[1]));
+            		int[] p = Utility.randomPosition(level.getFreeTiles(), broadphase);
+            		// With no free tile left the enemy leaves no power-up
+            		if(p != null) {
+            			int col = p[0] / Utility.TILE_SIZE;
+            			int row = p[1] / Utility.TILE_SIZE;
+            			PowerUp powerUp = PowerUp.PowerUpFactory.createRandomPowerUp(p[0],p[1]);
+            			// The tile is taken at once, so the enemies destroyed in the same tick don't draw it again
+            			level.getFreeTiles().occupy(col, row);
+            			powerUp.setTile(TileGrid.index(col, row));
+            			commands.spawn(powerUp);
+            		}
             	}
                 if(o instanceof PowerUp) {
                 	PowerUp p = (PowerUp) o;
                 	points += p.getPoints();
                 }
-            	iterator.remove();
-                gamePanel.updateComponents();
+            	commands.destroy(list, index);
             }else {
             	if(o instanceof Enemy) {
             		Enemy e = (Enemy) o;
-            		if(e.attack()) {
+            		AiScheduler.Tier tier = aiScheduler.classify(e, player);
+            		// Caught enemies are attached to their bubble and move with it, there is nothing to simulate
+            		if(tier == AiScheduler.Tier.CAUGHT) continue;
+            		String pattern = e.getBehaviour().getAttackPattern();
+            		if(pattern != null && e.attack()) {
         				double x = 0;
         	            if (e.getDirection() == MovableObject.Direction.RIGHT) {
         	                x = e.getX() + e.getWidth();
         	            } else {
         	                x = e.getX() - e.getWidth();
         	            }
-        	            if(e instanceof Mighta) objects.add(new Boulder(x, e.getY(), e.getDirection()));
-        	            gamePanel.updateComponents();	
-            			
+        	            projectiles.fire(pattern, x + e.getWidth() / 2, e.getY() + e.getHeight() / 2, e.getDirection());
             		}
-            		e.move(getComponents(), player);
+            		if(aiScheduler.shouldThink(tier, index)) e.think(player);
+            		e.act(colliders);
+            		if(!e.isSleeping()) broadphase.wakeNear(e);
             	}else if(o instanceof MovableObject) {
             		MovableObject b = (MovableObject)o;
-            		b.updatePosition(getComponents());
+            		// Resting objects are skipped until something near them wakes them up
+            		if(b.isSleeping()) continue;
+            		b.updatePosition(colliders);
+            		broadphase.wakeNear(b);
             	}
             }
         }
@@ -497,10 +675,35 @@ public class GameController implements Runnable,PlayerObserver{
      * if the level is finished, it goes to the next one
      */
     public void update() {
+        if (state == GameState.RUNNING && levelChangeRequested) {
+            levelChangeRequested = false;
+            nextLevel();
+        }
         if (state == GameState.RUNNING) {
-            player.updatePosition(getComponents());
+            if(shootRequested) {
+            	shootRequested = false;
+            	shootBubble();
+            }
+            rebuildBroadphase();
+            collectColliders();
+            player.updatePosition(colliders);
+            if(!player.isSleeping()) broadphase.wakeNear(player);
+            // The enemies read their way to the player from the field, computed again only if the player changed tile
+            SpatialQuery.getInstance().getDistanceField().update(player);
+            aiScheduler.nextTick();
             updatePosition(enemies);
             updatePosition(objects);
+            projectiles.update(player);
+            level.getElements().update(player, enemies);
+            // Every movement is resolved, now the contacts found can respond once each
+            level.getContacts().resolve();
+            // The bubbles popped by the player pop every bubble touching them, found where they are now
+            if(level.getChainReaction().hasSeeds()) {
+            	rebuildBroadphase();
+            	points += level.getChainReaction().resolve(objects);
+            }
+            // The objects spawned and destroyed during the tick are added and removed all together
+            if(commands.apply(objects, this::recycle)) gamePanel.updateComponents();
 
             // Check if all enemies and objects are cleared
             if (enemies.isEmpty() && !levelChangeScheduled) {
@@ -510,13 +713,63 @@ public class GameController implements Runnable,PlayerObserver{
                     @Override
                     public void run() {
                         changeLevel();
-                        levelChangeScheduled = false;  // Reset for future level changes
                     }
                 }, 7000);  // Delay of 5 seconds (5000 milliseconds)
             }
         }
     }
     
+    /**
+     * Frees the handle of a destroyed object and gives it back to its pool, if it has one.
+     * A power-up also gives back the free tile it was spawned on
+     * @param o the object removed from the level
+     */
+    private void recycle(GameObject o) {
+    	o.dispose();
+    	// The special bubbles belong to their level, only the player's ones go back to the pool
+    	if(o instanceof ElementBubble) return;
+    	if(o instanceof Bubble) bubblePool.release((Bubble) o);
+    	else if(o instanceof PowerUp) {
+    		PowerUp p = (PowerUp) o;
+    		// The tile it was spawned on can take a new power-up
+    		if(p.getTile() >= 0) level.getFreeTiles().release(p.getTile() % TileGrid.COLUMNS, p.getTile() / TileGrid.COLUMNS);
+    		PowerUp.PowerUpFactory.release(p);
+    	}
+    }
+
+    /**
+     * Frees the handles of the walls and enemies of the level being left
+     * and gives the objects left in it back to their pools
+     */
+    private void disposeLevel() {
+    	for (Wall w : walls) w.dispose();
+    	for (Enemy e : enemies) e.dispose();
+    	for (GameObject o : objects) recycle(o);
+    }
+
+    /**
+     * Fills the pools with enough objects for the current level, so that
+     * the level doesn't create any while it is played: a few bubbles for the player
+     * and a power-up for each enemy
+     */
+    private void prefillPools() {
+    	bubblePool.prefill(BUBBLES_PER_LEVEL);
+    	PowerUp.PowerUpFactory.getPool().prefill(enemies.size());
+    }
+
+    /**
+     * Fills the broadphase with the dynamic objects of the level: the player,
+     * the enemies and the other objects. Walls are looked up in the tile grid instead.
+     */
+    private void rebuildBroadphase() {
+        broadphase.clear();
+        broadphase.insert(player);
+        for (Enemy e : enemies) {
+            if (!e.isAttached()) broadphase.insert(e);
+        }
+        for (GameObject o : objects) broadphase.insert(o);
+    }
+
     /**
      * It changes the currently shown panel in the frame to the intended one
      * @param panel	the game state to change to it's view
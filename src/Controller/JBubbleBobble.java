@@ -1,7 +1,13 @@
 package Controller;
 
+import java.util.Arrays;
+
+import Model.SubPixel;
+
 public class JBubbleBobble {
     public static void main(String[] args) {
+        // The fixed-point physics mode is chosen before anything is created
+        if (Arrays.asList(args).contains("--subpixel")) SubPixel.setEnabled(true);
         GameController.getInstance().run();
     }
 }
@@ -0,0 +1,106 @@
+package Controller;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import Model.LevelFile;
+import Model.LevelMap;
+import Model.LevelPrototype;
+import Model.TileGrid;
+
+/**
+ * LevelCompiler converts the text level files into the binary ".lvl" files read by {@link LevelFile}.
+ * Without arguments it compiles every level of {@link LevelMap}, next to its text file; otherwise every argument
+ * is a text file to compile, and the binary file gets the same name with the ".lvl" extension.
+ * With "-pack &lt;file&gt;" as the first arguments, the text files that follow are compiled together in a single level pack.
+ * Every file written is read back and checked against the text file, and the time it takes to read it is printed.
+ * It must be run again after changing a text file, otherwise the game keeps reading the text file,
+ * newer than the binary one.
+ * It is a standalone program and it is not part of the game.
+ */
+public class LevelCompiler {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            for (LevelMap level : LevelMap.values()) compile(level.getTextFile(), level.getBinaryFile());
+        } else if (args[0].equals("-pack") && args.length > 1) {
+            List<String> texts = new ArrayList<>();
+            for (int i = 2; i < args.length; i++) texts.add(args[i]);
+            pack(texts, args[1]);
+        } else {
+            for (String text : args) compile(text, text.replaceFirst("\\.txt$", "") + ".lvl");
+        }
+    }
+
+    /**
+     * Compiles a text level file into a binary one and checks it.
+     */
+    private static void compile(String text, String binary) throws IOException {
+        LevelPrototype level = LevelPrototype.read(text);
+        if (level == null) return;
+        LevelFile.write(level, binary);
+
+        long start = System.nanoTime();
+        LevelPrototype compiled = LevelFile.load(binary);
+        long micros = (System.nanoTime() - start) / 1000;
+        if (compiled == null || !sameObjects(level, compiled)) {
+            throw new IOException("The compiled level doesn't match its text file: " + binary);
+        }
+        System.out.printf("%-40s %6d bytes %6d objects %6d us%n", binary, new File(binary).length(),
+                compiled.getSpawnCount(), micros);
+    }
+
+    /**
+     * Compiles many text level files into a single level pack and checks it.
+     */
+    private static void pack(List<String> texts, String binary) throws IOException {
+        List<LevelPrototype> levels = new ArrayList<>();
+        for (String text : texts) {
+            LevelPrototype level = LevelPrototype.read(text);
+            if (level == null) return;
+            levels.add(level);
+        }
+        LevelFile.writePack(levels, binary);
+
+        long start = System.nanoTime();
+        List<LevelPrototype> compiled = LevelFile.loadPack(binary);
+        long micros = (System.nanoTime() - start) / 1000;
+        if (compiled == null || compiled.size() != levels.size()) {
+            throw new IOException("The compiled pack doesn't match its text files: " + binary);
+        }
+        for (int i = 0; i < levels.size(); i++) {
+            if (!sameObjects(levels.get(i), compiled.get(i))) {
+                throw new IOException("The compiled pack doesn't match its text file: " + texts.get(i));
+            }
+        }
+        System.out.printf("%-40s %6d bytes %6d levels %6d us%n", binary, new File(binary).length(), compiled.size(), micros);
+    }
+
+    /**
+     * Checks if two prototypes start with the same objects in the same places and have the same air currents.
+     * The walls are compared in their order, and so are the other objects, as they end up in different lists.
+     */
+    private static boolean sameObjects(LevelPrototype a, LevelPrototype b) {
+        for (int row = 0; row < TileGrid.ROWS; row++) {
+            for (int col = 0; col < TileGrid.COLUMNS; col++) {
+                if (a.getCurrents().getTileCurrent(col, row) != b.getCurrents().getTileCurrent(col, row)) return false;
+            }
+        }
+        return describe(a, true).equals(describe(b, true)) && describe(a, false).equals(describe(b, false));
+    }
+
+    /**
+     * Lists the walls, or the other objects, of a prototype with their column and row.
+     */
+    private static String describe(LevelPrototype p, boolean walls) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < p.getSpawnCount(); i++) {
+            char c = p.getSpawn(i);
+            if ((c == 'W' || c == '-') != walls) continue;
+            sb.append(c).append(p.getColumn(i)).append(',').append(p.getRow(i)).append(' ');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,138 @@
+package Model;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+/**
+ * The AabbBatch class holds a batch of candidate hitboxes in primitive arrays, one array
+ * per coordinate, and tests one hitbox against all of them in a single loop.
+ * It is a plain scalar loop, with no branches and reading the arrays in order, and
+ * it is the narrowphase used after the broadphase has found the candidates.
+ */
+public class AabbBatch {
+
+    /** The initial capacity of the batch. */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** The left edges of the candidates. */
+    private int[] minX;
+
+    /** The top edges of the candidates. */
+    private int[] minY;
+
+    /** The right edges of the candidates, excluded. */
+    private int[] maxX;
+
+    /** The bottom edges of the candidates, excluded. */
+    private int[] maxY;
+
+    /** The candidates themselves. */
+    private GameObject[] objects;
+
+    /** The number of candidates in the batch. */
+    private int size;
+
+    /**
+     * Constructs an empty batch.
+     */
+    public AabbBatch() {
+        minX = new int[INITIAL_CAPACITY];
+        minY = new int[INITIAL_CAPACITY];
+        maxX = new int[INITIAL_CAPACITY];
+        maxY = new int[INITIAL_CAPACITY];
+        objects = new GameObject[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Removes every candidate from the batch, keeping the arrays for the next use.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) objects[i] = null;
+        size = 0;
+    }
+
+    /**
+     * Adds a candidate to the batch, copying its hitbox.
+     *
+     * @param obj the candidate to add
+     */
+    public void add(GameObject obj) {
+        if (size == objects.length) grow();
+        Rectangle r = obj.getHitbox();
+        minX[size] = r.x;
+        minY[size] = r.y;
+        maxX[size] = r.x + r.width;
+        maxY[size] = r.y + r.height;
+        objects[size++] = obj;
+    }
+
+    /**
+     * Returns the number of candidates in the batch.
+     *
+     * @return the number of candidates
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the candidate at the given position.
+     *
+     * @param i the position of the candidate
+     * @return the candidate
+     */
+    public GameObject get(int i) {
+        return objects[i];
+    }
+
+    /**
+     * Tests a hitbox against every candidate and writes in {@code mask} 1 for the ones
+     * that intersect it and 0 for the others, with the same rule of {@link Rectangle#intersects}.
+     * A candidate intersects when all four edge differences are positive, so the sign bits
+     * of the differences are merged and checked at once.
+     *
+     * @param box the hitbox to test
+     * @param mask the result for each candidate, at least {@link #size()} long
+     */
+    public void intersectMask(Rectangle box, int[] mask) {
+        int bMinX = box.x;
+        int bMinY = box.y;
+        int bMaxX = box.x + box.width;
+        int bMaxY = box.y + box.height;
+        for (int i = 0; i < size; i++) {
+            int signs = (bMaxX - minX[i] - 1) | (maxX[i] - bMinX - 1) | (bMaxY - minY[i] - 1) | (maxY[i] - bMinY - 1);
+            mask[i] = ~signs >>> 31;
+        }
+    }
+
+    /**
+     * Tests a hitbox against every candidate and writes the positions of the ones
+     * that intersect it at the beginning of {@code hits}.
+     *
+     * @param box the hitbox to test
+     * @param hits the positions of the candidates hit, at least {@link #size()} long
+     * @return the number of candidates hit
+     */
+    public int intersect(Rectangle box, int[] hits) {
+        intersectMask(box, hits);
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int hit = hits[i];
+            hits[count] = i;
+            count += hit;
+        }
+        return count;
+    }
+
+    /**
+     * Doubles the capacity of the batch.
+     */
+    private void grow() {
+        int capacity = objects.length * 2;
+        minX = Arrays.copyOf(minX, capacity);
+        minY = Arrays.copyOf(minY, capacity);
+        maxX = Arrays.copyOf(maxX, capacity);
+        maxY = Arrays.copyOf(maxY, capacity);
+        objects = Arrays.copyOf(objects, capacity);
+    }
+}
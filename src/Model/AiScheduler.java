@@ -0,0 +1,102 @@
+package Model;
+
+/**
+ * The AiScheduler class decides how often each enemy thinks, so that the AI spends its
+ * time where the player can see it. The enemies are split in tiers every tick:
+ * the caught ones are carried around by their bubble and are skipped entirely,
+ * the ones near the player think every tick, and the far ones think once every
+ * {@link #FAR_PERIOD} ticks, each on a different tick so that their work is spread evenly,
+ * and keep moving on their last decision in between.
+ * The number of enemies in each tier during the last tick is kept for tuning.
+ */
+public class AiScheduler {
+
+    /** The tiers of detail of the AI. */
+    public enum Tier {
+        CAUGHT, NEAR, FAR
+    }
+
+    /** The distance from the player, in pixels, within which an enemy is near. */
+    public static final double NEAR_DISTANCE = Utility.TILE_SIZE * 8;
+
+    /** How many ticks pass between two decisions of a far enemy. */
+    public static final int FAR_PERIOD = 4;
+
+    /** The number of ticks since the scheduler was created. */
+    private int tick;
+
+    /** The number of enemies in each tier during the current tick. */
+    private final int[] counts;
+
+    /** The number of decisions taken during the current tick. */
+    private int decisions;
+
+    /**
+     * Constructs an AiScheduler.
+     */
+    public AiScheduler() {
+        counts = new int[Tier.values().length];
+    }
+
+    /**
+     * Starts a new tick, clearing the counts of the previous one.
+     */
+    public void nextTick() {
+        tick++;
+        for (int i = 0; i < counts.length; i++) counts[i] = 0;
+        decisions = 0;
+    }
+
+    /**
+     * Puts an enemy in its tier for the current tick and counts it.
+     *
+     * @param e the enemy
+     * @param player the player
+     * @return the tier of the enemy
+     */
+    public Tier classify(Enemy e, Player player) {
+        Tier tier;
+        if (e.isAttached()) {
+            tier = Tier.CAUGHT;
+        } else {
+            double dx = (e.getX() + e.getWidth() / 2) - (player.getX() + player.getWidth() / 2);
+            double dy = (e.getY() + e.getHeight() / 2) - (player.getY() + player.getHeight() / 2);
+            tier = dx * dx + dy * dy <= NEAR_DISTANCE * NEAR_DISTANCE ? Tier.NEAR : Tier.FAR;
+        }
+        counts[tier.ordinal()]++;
+        return tier;
+    }
+
+    /**
+     * Checks if an enemy has to think during the current tick. Far enemies take turns
+     * according to their position in the list of enemies.
+     *
+     * @param tier the tier of the enemy
+     * @param index the position of the enemy in the list of enemies
+     * @return true if the enemy has to decide again where to go, false otherwise
+     */
+    public boolean shouldThink(Tier tier, int index) {
+        boolean think = tier == Tier.NEAR || (tier == Tier.FAR && (tick + index) % FAR_PERIOD == 0);
+        if (think) decisions++;
+        return think;
+    }
+
+    /**
+     * Returns how many enemies were in a tier during the current tick.
+     *
+     * @param tier the tier
+     * @return the number of enemies in the tier
+     */
+    public int getCount(Tier tier) {
+        return counts[tier.ordinal()];
+    }
+
+    /**
+     * Returns how many decisions were taken during the current tick.
+     *
+     * @return the number of decisions
+     */
+    public int getDecisions() {
+        return decisions;
+    }
+}
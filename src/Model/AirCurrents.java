@@ -0,0 +1,162 @@
+package Model;
+
+/**
+ * The AirCurrents class holds the currents that carry the floating bubbles of a level,
+ * one for each tile: a bubble that stopped chasing enemies just moves the way the current
+ * of its tile goes, so a bubble costs one look-up per tick whatever path the level makes it follow.
+ * Without any arrow, the currents make the bubbles rise to the top of the level and gather
+ * in the middle of it; the arrows of the level file ('<', '>', '^' and 'v') change the current
+ * of their tile.
+ * A tile holds the bubbles whose top left corner is inside it or on its bottom or right edge:
+ * a bubble exactly four tiles from the top already belongs to the top rows, as it always did.
+ */
+public class AirCurrents {
+
+    /** No current, the bubble stays where it is. */
+    public static final byte NONE = 0;
+
+    /** A current going up. */
+    public static final byte UP = 1;
+
+    /** A current going down. */
+    public static final byte DOWN = 2;
+
+    /** A current going left. */
+    public static final byte LEFT = 3;
+
+    /** A current going right. */
+    public static final byte RIGHT = 4;
+
+    /** The horizontal direction of each current, indexed by the current. */
+    private static final int[] DX = {0, 0, 0, -1, 1};
+
+    /** The vertical direction of each current, indexed by the current. */
+    private static final int[] DY = {0, -1, 1, 0, 0};
+
+    /** The rows at the top of the level where the bubbles gather toward the middle. */
+    private static final int TOP_ROWS = 4;
+
+    /** The current of each tile, indexed like the tile grid. */
+    private final byte[] currents;
+
+    /**
+     * Constructs the currents of a level without arrows: up everywhere, and toward the middle
+     * of the level in the top rows.
+     */
+    public AirCurrents() {
+        currents = new byte[TileGrid.COLUMNS * TileGrid.ROWS];
+        for (int row = 0; row < TileGrid.ROWS; row++) {
+            for (int col = 0; col < TileGrid.COLUMNS; col++) {
+                byte current = UP;
+                if (row < TOP_ROWS) current = col < TileGrid.COLUMNS / 2 ? RIGHT : LEFT;
+                currents[TileGrid.index(col, row)] = current;
+            }
+        }
+    }
+
+    /**
+     * Changes the current of a tile, as an arrow of the level file does.
+     *
+     * @param col the column of the tile
+     * @param row the row of the tile
+     * @param current the new current
+     */
+    public void setCurrent(int col, int row, byte current) {
+        if (col >= 0 && col < TileGrid.COLUMNS && row >= 0 && row < TileGrid.ROWS) {
+            currents[TileGrid.index(col, row)] = current;
+        }
+    }
+
+    /**
+     * Returns the current of an arrow of the level file.
+     *
+     * @param arrow the character of the arrow
+     * @return the current, or -1 if the character is not an arrow
+     */
+    public static byte fromArrow(char arrow) {
+        return switch (arrow) {
+            case '^' -> UP;
+            case 'v' -> DOWN;
+            case '<' -> LEFT;
+            case '>' -> RIGHT;
+            default -> -1;
+        };
+    }
+
+    /**
+     * Returns the current carrying a bubble whose top left corner is at the given point.
+     *
+     * @param x the x-coordinate of the bubble
+     * @param y the y-coordinate of the bubble
+     * @return the current
+     */
+    public byte getCurrent(double x, double y) {
+        return currents[tileOf(x, y)];
+    }
+
+    /**
+     * Returns the current of a tile.
+     *
+     * @param col the column of the tile
+     * @param row the row of the tile
+     * @return the current
+     */
+    public byte getTileCurrent(int col, int row) {
+        return currents[TileGrid.index(col, row)];
+    }
+
+    /**
+     * Returns the tile holding a bubble whose top left corner is at the given point.
+     * Points outside the level belong to the nearest tile.
+     *
+     * @param x the x-coordinate of the bubble
+     * @param y the y-coordinate of the bubble
+     * @return the index of the tile
+     */
+    public static int tileOf(double x, double y) {
+        int col = Math.max(0, Math.min(TileGrid.COLUMNS - 1, edgeIndex(x)));
+        int row = Math.max(0, Math.min(TileGrid.ROWS - 1, edgeIndex(y)));
+        return TileGrid.index(col, row);
+    }
+
+    /**
+     * Returns the column or row of a coordinate, with the coordinates on an edge belonging to the tile before it.
+     *
+     * @param coordinate the x or y coordinate
+     * @return the column or row
+     */
+    public static int edgeIndex(double coordinate) {
+        return (int) Math.ceil(coordinate / Utility.TILE_SIZE) - 1;
+    }
+
+    /**
+     * Returns the horizontal direction of a current.
+     *
+     * @param current the current
+     * @return -1 for the left, 1 for the right, 0 otherwise
+     */
+    public static int dx(byte current) {
+        return DX[current];
+    }
+
+    /**
+     * Returns the vertical direction of a current.
+     *
+     * @param current the current
+     * @return -1 for up, 1 for down, 0 otherwise
+     */
+    public static int dy(byte current) {
+        return DY[current];
+    }
+
+    /**
+     * Checks if two currents go against each other, so that the bubbles meet where they touch.
+     *
+     * @param a a current
+     * @param b the other current
+     * @return true if the currents are opposite, false otherwise
+     */
+    public static boolean opposite(byte a, byte b) {
+        return a != NONE && DX[a] == -DX[b] && DY[a] == -DY[b];
+    }
+}
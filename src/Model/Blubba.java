@@ -11,7 +11,8 @@ import java.util.Random;
  */
 public class Blubba extends Enemy {
 
-	private boolean down,up;
+	/** Flag bits indicating if Blubba is going to move down or up. */
+	private static final int DOWN = 1 << 12, UP = 1 << 13;
     /**
      * Constructs a new {@code Blubba} instance at the specified position.
      *
@@ -22,80 +23,105 @@ public class Blubba extends Enemy {
         super(x, y, 20, 20); // Calls the constructor of the superclass (Enemy)
     }
     
+    /**
+     * Moves Blubba toward the player, flying to the centre of the next tile of the distance field.
+     * Blubba is a little wider than a tile, so when the next tile has a wall on one side
+     * it also moves away from that wall to fit through.
+     * When the player can't be reached, it moves at random.
+     *
+     * @param player the player to chase
+     * @param seen true if Blubba sees the player
+     */
     @Override
-    public void move(List<GameObject> others, Player player) {
+    protected void decide(Player player, boolean seen) {
+        DistanceField field = SpatialQuery.getInstance().getDistanceField();
+        int next = field == null ? -1 : field.nextTile(this);
+        if (next >= 0 && state != State.CAUGHT) {
+            TileGrid grid = SpatialQuery.getInstance().getGrid();
+            int col = next % TileGrid.COLUMNS;
+            int row = next / TileGrid.COLUMNS;
+            double dx = (col + 0.5) * Utility.TILE_SIZE - (getX() + getWidth() / 2);
+            double dy = (row + 0.5) * Utility.TILE_SIZE - (getY() + getHeight() / 2);
+            setFlag(RIGHT, dx >= speed || (Math.abs(dy) >= speed && grid.isWalkable(col - 1, row) && !grid.isWalkable(col + 1, row)));
+            setFlag(LEFT, dx <= -speed || (Math.abs(dy) >= speed && grid.isWalkable(col + 1, row) && !grid.isWalkable(col - 1, row)));
+            setFlag(DOWN, dy >= speed || (Math.abs(dx) >= speed && grid.isWalkable(col, row - 1) && !grid.isWalkable(col, row + 1)));
+            setFlag(UP, dy <= -speed || (Math.abs(dx) >= speed && grid.isWalkable(col, row + 1) && !grid.isWalkable(col, row - 1)));
+            return;
+        }
+
         Random r = new Random();
         double n = r.nextDouble() * 100;  
         
         // Random movement logic
-        if (down && n < 90) {
+        if (hasFlag(DOWN) && n < 90) {
             // 90% chance to continue moving right
-            up = false;
-        } else if (up && n < 90) {
+            setFlag(UP, false);
+        } else if (hasFlag(UP) && n < 90) {
             // 90% chance to continue moving left
-            down = false;
-        } else if (!up && !down && n < 50) {
+            setFlag(DOWN, false);
+        } else if (!hasFlag(UP) && !hasFlag(DOWN) && n < 50) {
             // 50% chance to start moving right if idle
-            down = true;
-        } else if (!up && !down && n < 100) {
+            setFlag(DOWN, true);
+        } else if (!hasFlag(UP) && !hasFlag(DOWN) && n < 100) {
             // 50% chance to start moving left if idle
-            up = true;
+            setFlag(UP, true);
         } else {
             // No movement
-            down = false;
-            up = false;
+            setFlag(DOWN, false);
+            setFlag(UP, false);
         }
+        super.decide(player, seen);
+    }
+
+    @Override
+    public void act(List<GameObject> others) {
         if(state == State.CAUGHT) {
-        	down = false;
-        	up = false;
+        	setFlag(DOWN, false);
+        	setFlag(UP, false);
         }
-        super.move(others, player);
+        super.act(others);
     }
 
     @Override
     public void updatePosition(List<GameObject> others) {
     	
-    	others.remove(this);
-        moving = false;
+        setFlag(MOVING, false);
 
-        Rectangle newHitbox = new Rectangle(this.getHitbox());
+        double newX = this.x;
+        double newY = this.y;
         boolean movingRight = false;
         boolean movingLeft = false;
 
-        if (right && !left) {
-            newHitbox.setLocation((int) (this.x + speed), (int) this.y);
+        if (hasFlag(RIGHT) && !hasFlag(LEFT)) {
+            newX = this.x + speed;
             direction = Direction.RIGHT;
             movingRight = true;
-        } else if (!right && left) {
-            newHitbox.setLocation((int) (this.x - speed), (int) this.y);
+        } else if (!hasFlag(RIGHT) && hasFlag(LEFT)) {
+            newX = this.x - speed;
             direction = Direction.LEFT;
             movingLeft = true;
         }
         
-        if(up && !down) {
-            newHitbox.setLocation((int) newHitbox.x,(int) (this.y - speed));
-        }else if (!up && down) {
-            newHitbox.setLocation((int) newHitbox.x,(int) (this.y + speed));
+        if(hasFlag(UP) && !hasFlag(DOWN)) {
+            newY = this.y - speed;
+        }else if (!hasFlag(UP) && hasFlag(DOWN)) {
+            newY = this.y + speed;
         }
+        Rectangle newHitbox = probe(newX, newY);
 
-        if (!newHitbox.equals(this.hitbox)) {
+        if (newX != this.x || newY != this.y) {
             for (GameObject obj : others) {
-            	if(obj instanceof Boulder || obj instanceof Bubble) continue;
+            	if(obj == this || obj instanceof Bubble) continue;
                 CollisionDetection det = CollisionDetection.collisionDetection(this, newHitbox, obj);
                 if (det.isCollisionDetected()) {
-                	if(obj instanceof Boulder || obj instanceof Bubble) continue;
-                    switch (det.getDirection()) {
-                        case LEFT -> newHitbox.setLocation((int) (obj.getX() + obj.getWidth()), newHitbox.y);
-                        case RIGHT -> newHitbox.setLocation((int) (obj.getX() - newHitbox.width), newHitbox.y);
-                        case BOTTOM -> newHitbox.setLocation((int) newHitbox.x, (int) (obj.getY() - getHeight()));
-                        case TOP -> newHitbox.setLocation((int) newHitbox.x, (int) (obj.getY() + obj.getHeight()));
-                    }
+                	if(obj instanceof Bubble) continue;
+                    newHitbox.translate(det.getTranslationX(), det.getTranslationY());
                 }
             }
 
-            this.x = newHitbox.getX();
-            this.y = newHitbox.getY();
-            moving = movingRight || movingLeft;
+            this.x = settle(newX, newHitbox.x);
+            this.y = settle(newY, newHitbox.y);
+            setFlag(MOVING, movingRight || movingLeft);
             updateHitbox();
         }
    
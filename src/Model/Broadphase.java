@@ -0,0 +1,189 @@
+package Model;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The Broadphase class keeps the game objects of the level bucketed in a uniform grid,
+ * so that the objects close to an area can be found without scanning the whole level.
+ * Walls are not meant to be stored here, since the {@link TileGrid} already answers for them.
+ * The grid is rebuilt once per tick and it is also used to wake up the resting objects
+ * when something moves next to them.
+ */
+public class Broadphase {
+
+    /** The size of a cell of the grid, two tiles wide. */
+    public static final int CELL_SIZE = Utility.TILE_SIZE * 2;
+
+    /** The number of columns of the grid. */
+    private final int columns;
+
+    /** The number of rows of the grid. */
+    private final int rows;
+
+    /** The objects overlapping each cell, indexed by row * columns + column. */
+    private final List<List<GameObject>> cells;
+
+    /** Stamp of the current query, used to report each object only once. */
+    private int stamp;
+
+    /**
+     * Constructs an empty Broadphase covering the whole game area.
+     */
+    public Broadphase() {
+        columns = (Utility.WIDTH + CELL_SIZE - 1) / CELL_SIZE;
+        rows = (Utility.HEIGHT + CELL_SIZE - 1) / CELL_SIZE;
+        cells = new ArrayList<>(columns * rows);
+        for (int i = 0; i < columns * rows; i++) {
+            cells.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Empties the grid and inserts again every object in the cells its hitbox overlaps.
+     *
+     * @param objects the objects of the level
+     */
+    public void rebuild(List<? extends GameObject> objects) {
+        clear();
+        for (GameObject obj : objects) {
+            insert(obj);
+        }
+    }
+
+    /**
+     * Removes every object from the grid.
+     */
+    public void clear() {
+        for (List<GameObject> cell : cells) {
+            cell.clear();
+        }
+    }
+
+    /**
+     * Inserts an object in the cells its hitbox overlaps.
+     *
+     * @param obj the object to insert
+     */
+    public void insert(GameObject obj) {
+        Rectangle r = obj.getHitbox();
+        int minCol = column(r.x);
+        int maxCol = column(r.x + r.width - 1);
+        int minRow = row(r.y);
+        int maxRow = row(r.y + r.height - 1);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                cells.get(row * columns + col).add(obj);
+            }
+        }
+    }
+
+    /**
+     * Collects every object whose hitbox intersects the given area.
+     * Each object is added only once, even if it spans more cells.
+     *
+     * @param area the area to search
+     * @param result the list the objects found are added to
+     */
+    public void query(Rectangle area, List<GameObject> result) {
+        stamp++;
+        int minCol = column(area.x);
+        int maxCol = column(area.x + area.width - 1);
+        int minRow = row(area.y);
+        int maxRow = row(area.y + area.height - 1);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                for (GameObject obj : cells.get(row * columns + col)) {
+                    if (obj.queryStamp != stamp && area.intersects(obj.getHitbox())) {
+                        obj.queryStamp = stamp;
+                        result.add(obj);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects in a batch every object stored in the cells overlapped by the given area,
+     * without testing their hitboxes, so that the batch can test them all at once.
+     * Each object is added only once, even if it spans more cells.
+     *
+     * @param area the area to search
+     * @param batch the batch the candidates are added to
+     */
+    public void candidates(Rectangle area, AabbBatch batch) {
+        stamp++;
+        int minCol = column(area.x);
+        int maxCol = column(area.x + area.width - 1);
+        int minRow = row(area.y);
+        int maxRow = row(area.y + area.height - 1);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                for (GameObject obj : cells.get(row * columns + col)) {
+                    if (obj.queryStamp != stamp) {
+                        obj.queryStamp = stamp;
+                        batch.add(obj);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Wakes up the sleeping objects that are within one tile from the given object,
+     * because its movement may have changed what they are resting on.
+     *
+     * @param mover the object that has just moved
+     */
+    public void wakeNear(GameObject mover) {
+        Rectangle r = mover.getHitbox();
+        wakeArea(new Rectangle(r.x - Utility.TILE_SIZE, r.y - Utility.TILE_SIZE,
+                r.width + 2 * Utility.TILE_SIZE, r.height + 2 * Utility.TILE_SIZE), mover);
+    }
+
+    /**
+     * Wakes up every sleeping object intersecting the given area, for example when
+     * a wall is removed or something is pushed inside it.
+     *
+     * @param area the area that has changed
+     * @param source the object that caused the change, which is not woken up, or null
+     */
+    public void wakeArea(Rectangle area, GameObject source) {
+        int minCol = column(area.x);
+        int maxCol = column(area.x + area.width - 1);
+        int minRow = row(area.y);
+        int maxRow = row(area.y + area.height - 1);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                for (GameObject obj : cells.get(row * columns + col)) {
+                    if (obj == source || !(obj instanceof MovableObject)) continue;
+                    MovableObject m = (MovableObject) obj;
+                    if (m.isSleeping() && area.intersects(m.getHitbox())) {
+                        m.wakeUp();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the column of the cell containing the given x-coordinate, clamped to the grid.
+     *
+     * @param x the x-coordinate
+     * @return the column of the cell
+     */
+    private int column(int x) {
+        return Math.max(0, Math.min(columns - 1, x / CELL_SIZE));
+    }
+
+    /**
+     * Returns the row of the cell containing the given y-coordinate, clamped to the grid.
+     *
+     * @param y the y-coordinate
+     * @return the row of the cell
+     */
+    private int row(int y) {
+        return Math.max(0, Math.min(rows - 1, y / CELL_SIZE));
+    }
+}
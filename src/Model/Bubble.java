@@ -10,14 +10,16 @@ import java.util.List;
 public class Bubble extends MovableObject {
 
     private final double MAX_OFFSET = 4 * Utility.TILE_SIZE; // Maximum horizontal movement offset
-    private boolean canCatch; // Indicates if the bubble can catch enemies
-    private boolean UP; // Indicates if the bubble is moving upwards
+    private static final int CAN_CATCH = 1 << 6; // Flag bit indicating if the bubble can catch enemies
+    private static final int RESTING = 1 << 7; // Flag bit indicating if the air currents brought the bubble to rest
     private double offset; // Tracks the current horizontal offset
     private Enemy caughtEnemy; // The enemy currently caught by the bubble
 
-    private boolean reachedTopMiddle = false; // Indicates if the bubble has reached the top middle position
-    private long reachedTime = 0; // The time when the bubble reached the top middle
-    private final long FIVE_SECONDS = 5000; // Duration after which the bubble destroys itself
+    private int topTimer = 0; // The ticks left at rest before the bubble destroys itself
+    private static final int FIVE_SECONDS = 150; // Ticks the bubble stays at rest, 5 seconds at 30 FPS
+
+    int chainIndex; // The index of the bubble in the last chain reaction, valid while chainStamp matches it
+    int chainStamp; // The chain reaction that last indexed the bubble
 
     /**
      * Constructs a new {@code Bubble} instance at the specified position and direction.
@@ -29,92 +31,123 @@ public class Bubble extends MovableObject {
     public Bubble(double x, double y, Direction direction) {
         super(x, y, 20, 20); // Calls the constructor of the superclass (MovableObject)
         offset = 0;
-        canCatch = true; // The bubble can initially catch enemies
+        setFlag(CAN_CATCH, true); // The bubble can initially catch enemies
         this.direction = direction; // Set the initial direction
     }
 
+    /**
+     * Resets a bubble taken from a pool, as if it was just shot from the given position.
+     *
+     * @param x         the x-coordinate of the bubble's position
+     * @param y         the y-coordinate of the bubble's position
+     * @param direction the initial direction the bubble moves
+     */
+    public void reset(double x, double y, Direction direction) {
+        respawn(x, y);
+        offset = 0;
+        setFlag(CAN_CATCH, true);
+        caughtEnemy = null;
+        setFlag(RESTING, false);
+        topTimer = 0;
+        this.direction = direction;
+    }
+
+    /**
+     * Makes the bubble float from the start, like the bubbles that appear in a level
+     * instead of being shot: it goes up at once and can't catch enemies.
+     */
+    protected void drift() {
+        offset = MAX_OFFSET;
+        setFlag(CAN_CATCH, false);
+    }
+
     @Override
     public void updatePosition(List<GameObject> others) {
-        if (offset < MAX_OFFSET) {
+        boolean drifting = offset >= MAX_OFFSET;
+        if (!drifting) {
             // Bubble moves horizontally until MAX_OFFSET is reached
-            UP = false;
             if (getDirection() == Direction.RIGHT) {
-                right = true;
-                left = false;
+                setFlag(RIGHT, true);
+                setFlag(LEFT, false);
             } else {
-                left = true;
-                right = false;
+                setFlag(LEFT, true);
+                setFlag(RIGHT, false);
             }
         } else {
-            canCatch = false; // The bubble can no longer catch enemies
-            // After reaching MAX_OFFSET, bubble changes behavior
-            if (this.y <= 4 * Utility.TILE_SIZE) {
-                // Move horizontally until reaching y > 4 * Utility.TILE_SIZE
-                UP = false;
-                if (this.x < Utility.WIDTH / 2) {
-                    left = false;
-                    right = true;
-                } else if (this.x > Utility.WIDTH / 2) {
-                    left = true;
-                    right = false;
-                } else {
-                    left = false;
-                    right = false;
-                    if (!reachedTopMiddle) {
-                        reachedTopMiddle = true; // Mark that the bubble has reached the top middle
-                        reachedTime = System.currentTimeMillis(); // Record the time of reaching
-                    }
-                }
-            } else {
-                // Move vertically upwards
-                UP = true;
-                left = false;
-                right = false;
-            }
+            setFlag(CAN_CATCH, false); // The bubble can no longer catch enemies
         }
 
         // Update position based on movement direction
         offset += speed;
-        double velocity = 0;
-        if (right) velocity = getSpeed() * 1;
-        if (left) velocity = getSpeed() * -1;
+        double newX;
+        double newY = getY();
+        if (!drifting) {
+            double velocity = 0;
+            if (hasFlag(RIGHT)) velocity = getSpeed() * 1;
+            if (hasFlag(LEFT)) velocity = getSpeed() * -1;
+            newX = getX() + velocity;
+        } else {
+            // After reaching MAX_OFFSET, the bubble goes where the air current of its tile takes it
+            AirCurrents air = SpatialQuery.getInstance().getCurrents();
+            byte current = air.getCurrent(x, y);
+            int dx = AirCurrents.dx(current);
+            int dy = AirCurrents.dy(current);
+            setFlag(RIGHT, dx > 0);
+            setFlag(LEFT, dx < 0);
+            newX = getX() + dx * getSpeed();
+            newY = getY() + dy * getSpeed();
+
+            // Where two currents meet the bubble stops on the edge between them
+            if (AirCurrents.opposite(current, air.getCurrent(newX, newY))) {
+                if (dx > 0) newX = (AirCurrents.edgeIndex(x) + 1) * Utility.TILE_SIZE;
+                if (dx < 0) newX = AirCurrents.edgeIndex(x) * Utility.TILE_SIZE;
+                if (dy > 0) newY = (AirCurrents.edgeIndex(y) + 1) * Utility.TILE_SIZE;
+                if (dy < 0) newY = AirCurrents.edgeIndex(y) * Utility.TILE_SIZE;
+            }
+            // A current going up or down pushes the bubble against the ceilings and the floors
+            if (dy < 0) {
+                double ceiling = findCeiling(newY);
+                if (ceiling >= 0) newY = ceiling;
+            } else if (dy > 0) {
+                double floor = findLanding(newY);
+                if (floor >= 0) newY = floor - getHeight();
+            }
+        }
 
         // Create a new hitbox for collision detection
-        Rectangle newHitbox = new Rectangle((int) (getX() + velocity), (int) (getY() - ((UP) ? getSpeed() : 0)), (int) getWidth(), (int) getHeight());
+        Rectangle newHitbox = probe(newX, newY);
         CollisionDetection detection = new CollisionDetection(false, null, null);
 
         // Check for collisions with other game objects
         for (GameObject obj : others) {
-            if (obj.equals(this) || obj instanceof Boulder) {
+            if (obj.equals(this)) {
                 continue; // Skip collision with itself
             }
             detection = CollisionDetection.collisionDetection(this, newHitbox, obj);
             if (detection.isCollisionDetected()) {
-                // Handle wall or bubble collision logic
-                if (detection.getDirection() == CollisionDetection.CollisionDirection.LEFT || detection.getDirection() == CollisionDetection.CollisionDirection.RIGHT) {
-                    switch (detection.getDirection()) {
-                        case LEFT -> newHitbox.setLocation((int) (obj.getX() + obj.getWidth()), (int) newHitbox.getY());
-                        case RIGHT -> newHitbox.setLocation((int) (obj.getX() - newHitbox.getWidth()), (int) newHitbox.getY());
-                        default -> throw new IllegalArgumentException("Unexpected value: " + detection.getDirection());
-                    }
-                }
+                // Handle wall or bubble collision logic, bubbles are only pushed sideways
+                newHitbox.translate(detection.getTranslationX(), 0);
             }
         }
 
         // Update the bubble's position
-        x = newHitbox.getX();
-        y = newHitbox.getY();
+        double oldX = x;
+        double oldY = y;
+        x = settle(newX, newHitbox.x);
+        y = settle(newY, newHitbox.y);
 
-        if (caughtEnemy != null) {
-            caughtEnemy.setX(getX());
-            caughtEnemy.setY(getY());
+        // A bubble the currents can't move any more is at rest
+        if (drifting && x == oldX && y == oldY && !hasFlag(RESTING)) {
+            setFlag(RESTING, true);
+            topTimer = FIVE_SECONDS; // Start counting the ticks spent there
         }
 
         updateHitbox(); // Update the bubble's hitbox
 
-        // If 5 seconds have passed after reaching the top middle
-        if (reachedTopMiddle && System.currentTimeMillis() - reachedTime >= FIVE_SECONDS) {
+        // If 5 seconds have passed after coming to rest
+        if (hasFlag(RESTING) && --topTimer <= 0) {
             if (caughtEnemy != null) {
+                caughtEnemy.detach(); // Leave the enemy where the bubble is
                 caughtEnemy.free(); // Free the caught enemy
             }
             destroy(); // Destroy the bubble
@@ -138,19 +171,34 @@ public class Bubble extends MovableObject {
     public void collision(Collidable obj) {
         if (obj instanceof Enemy) {
             Enemy e = (Enemy) obj;
-            if (canCatch) {
+            if (hasFlag(CAN_CATCH)) {
                 e.caught(); // Catch the enemy
+                e.attachTo(this); // The enemy moves with the bubble from now on
                 caughtEnemy = e; // Set the caught enemy
-                canCatch = false; // Disable further catches
+                setFlag(CAN_CATCH, false); // Disable further catches
             }
         } else if (obj instanceof Player) {
         	if (caughtEnemy != null) {
-                caughtEnemy.destroy(); // Destroy the caught enemy
-                destroy(); // Destroy the bubble
+                LevelContext.getInstance().getLevel().getChainReaction().seed(this); // Pop the bubble and every bubble touching it
             }       	
         }
     }
 
+    /**
+     * Pops the bubble, destroying it together with the enemy it caught.
+     *
+     * @return true if the bubble held an enemy, false if it was empty
+     */
+    boolean pop() {
+        boolean full = caughtEnemy != null;
+        if (full) {
+            caughtEnemy.detach();
+            caughtEnemy.destroy(); // Destroy the caught enemy
+        }
+        destroy(); // Destroy the bubble
+        return full;
+    }
+
     @Override
     public void applyGravity(List<GameObject> others) {
         // NO GRAVITY
@@ -0,0 +1,206 @@
+package Model;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The ChainReaction class pops bubbles the way the arcade game does: when the player pops
+ * a bubble, every bubble touching it pops too, and every bubble touching those, and so on.
+ * The bubbles popped by the player during a tick are collected as seeds, and at the end of
+ * the tick the groups of touching bubbles are found in a single pass: each bubble asks the
+ * broadphase for the bubbles around it and joins their group in a union-find structure.
+ * Every group holding a seed then pops at once, whatever its size.
+ * An empty bubble is worth {@link #EMPTY_POINTS}; the enemies of a group are worth
+ * {@link #ENEMY_POINTS}, doubling with every other enemy popped in the same chain,
+ * up to {@link #MAX_ENEMY_POINTS}.
+ * The seeds belong to the level they were popped in, so every {@link LevelComponent} has its own
+ * chain reaction and a bubble popped on the last tick of a level never pops anything in the next one.
+ */
+public class ChainReaction {
+
+    /** How far apart, in pixels, two bubbles can be and still touch. */
+    public static final int TOUCH_DISTANCE = 2;
+
+    /** The points of an empty bubble. */
+    public static final int EMPTY_POINTS = 10;
+
+    /** The points of the first enemy of a chain. */
+    public static final int ENEMY_POINTS = 1000;
+
+    /** The most points a single enemy of a chain can be worth. */
+    public static final int MAX_ENEMY_POINTS = 64000;
+
+    /** The bubbles popped by the player during the current tick. */
+    private final List<Bubble> seeds;
+
+    /** The bubbles of the level during the last resolution, by index. */
+    private Bubble[] bubbles;
+
+    /** The parent of each bubble in the union-find structure, itself for the root of a group. */
+    private int[] parent;
+
+    /** The number of bubbles in the group of each root. */
+    private int[] size;
+
+    /** Whether the group of each root holds a seed. */
+    private boolean[] popped;
+
+    /** The stamp of the current resolution, telling the bubbles indexed by it apart from stale ones. */
+    private int stamp;
+
+    /** The box the neighbours of a bubble are looked for in, reused for every bubble. */
+    private final Rectangle area;
+
+    /** The number of bubbles in the longest chain popped by the last resolution. */
+    private int lastChain;
+
+    /**
+     * Constructs a chain reaction with no seeds.
+     */
+    public ChainReaction() {
+        seeds = new ArrayList<>();
+        bubbles = new Bubble[32];
+        parent = new int[32];
+        size = new int[32];
+        popped = new boolean[32];
+        area = new Rectangle();
+    }
+
+    /**
+     * Records that the player popped a bubble during this tick.
+     *
+     * @param b the bubble popped
+     */
+    public void seed(Bubble b) {
+        seeds.add(b);
+    }
+
+    /**
+     * Checks if any bubble was popped during this tick.
+     *
+     * @return true if there are chains to resolve, false otherwise
+     */
+    public boolean hasSeeds() {
+        return !seeds.isEmpty();
+    }
+
+    /**
+     * Pops every group of touching bubbles holding a seed and empties the seeds for the next tick.
+     * The broadphase must hold the bubbles where they are now.
+     *
+     * @param objects the objects of the level, the bubbles among them are the ones that can chain
+     * @return the points earned by the popped bubbles
+     */
+    public int resolve(List<GameObject> objects) {
+        lastChain = 0;
+        if (seeds.isEmpty()) return 0;
+        stamp++;
+        int count = index(objects);
+
+        // A single pass: every bubble joins the group of the bubbles it touches
+        for (int i = 0; i < count; i++) {
+            Rectangle box = bubbles[i].getHitbox();
+            area.setBounds(box.x - TOUCH_DISTANCE, box.y - TOUCH_DISTANCE,
+                    box.width + 2 * TOUCH_DISTANCE, box.height + 2 * TOUCH_DISTANCE);
+            for (GameObject obj : SpatialQuery.getInstance().queryRegion(area)) {
+                if (!(obj instanceof Bubble)) continue;
+                Bubble other = (Bubble) obj;
+                if (other.chainStamp == stamp) union(i, other.chainIndex);
+            }
+        }
+
+        for (Bubble b : seeds) {
+            if (b.chainStamp == stamp) popped[find(b.chainIndex)] = true;
+        }
+        seeds.clear();
+
+        // The enemies of each chain are counted in the order the bubbles were indexed
+        int[] enemies = new int[count];
+        int points = 0;
+        for (int i = 0; i < count; i++) {
+            int root = find(i);
+            if (!popped[root]) continue;
+            lastChain = Math.max(lastChain, size[root]);
+            if (bubbles[i].pop()) {
+                points += Math.min(ENEMY_POINTS << Math.min(enemies[root], 6), MAX_ENEMY_POINTS);
+                enemies[root]++;
+            } else {
+                points += EMPTY_POINTS;
+            }
+        }
+        Arrays.fill(bubbles, 0, count, null);
+        return points;
+    }
+
+    /**
+     * Gives an index to every bubble still in the level and makes it a group of its own.
+     *
+     * @param objects the objects of the level
+     * @return the number of bubbles indexed
+     */
+    private int index(List<GameObject> objects) {
+        int count = 0;
+        for (GameObject obj : objects) {
+            if (!(obj instanceof Bubble) || obj.isToDestroy()) continue;
+            if (count == bubbles.length) {
+                bubbles = Arrays.copyOf(bubbles, count * 2);
+                parent = Arrays.copyOf(parent, count * 2);
+                size = Arrays.copyOf(size, count * 2);
+                popped = Arrays.copyOf(popped, count * 2);
+            }
+            Bubble b = (Bubble) obj;
+            b.chainIndex = count;
+            b.chainStamp = stamp;
+            bubbles[count] = b;
+            parent[count] = count;
+            size[count] = 1;
+            popped[count] = false;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Finds the root of the group of a bubble, halving the path on the way.
+     *
+     * @param i the index of the bubble
+     * @return the index of the root of its group
+     */
+    private int find(int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * Joins the groups of two bubbles, hanging the smaller one under the bigger one.
+     *
+     * @param a the index of a bubble
+     * @param b the index of the other bubble
+     */
+    private void union(int a, int b) {
+        int ra = find(a);
+        int rb = find(b);
+        if (ra == rb) return;
+        if (size[ra] < size[rb]) {
+            int t = ra;
+            ra = rb;
+            rb = t;
+        }
+        parent[rb] = ra;
+        size[ra] += size[rb];
+    }
+
+    /**
+     * Returns how many bubbles the longest chain popped by the last resolution had.
+     *
+     * @return the number of bubbles, 0 if nothing popped
+     */
+    public int getLastChain() {
+        return lastChain;
+    }
+}
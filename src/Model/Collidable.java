@@ -6,6 +6,7 @@ public interface Collidable {
     
 	/**
      * Handles collisions between this object and another GameObject.
+     * It is called once per tick for each side of a contact, by the {@link ContactBuffer}.
      *
      * @param obj the other GameObject with which this object collides
      */
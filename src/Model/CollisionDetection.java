@@ -6,6 +6,9 @@ import java.awt.*;
  * The CollisionDetection class is responsible for detecting collisions between game objects.
  * It determines whether a collision has occurred, identifies the object that was hit, and
  * specifies the direction of the collision.
+ * The direction comes from the minimum translation vector: the shortest move, along a single
+ * axis, that takes the moving hitbox out of the other one. Callers resolve the collision
+ * by applying that translation.
  */
 public class CollisionDetection {
 
@@ -25,6 +28,12 @@ public class CollisionDetection {
     /** The direction of the collision. */
     private CollisionDirection direction;
 
+    /** The horizontal part of the minimum translation vector. */
+    private int translationX;
+
+    /** The vertical part of the minimum translation vector. */
+    private int translationY;
+
     /**
      * Constructs a CollisionDetection object with the given collision status, object detected, and direction.
      *
@@ -33,9 +42,26 @@ public class CollisionDetection {
      * @param direction the direction of the collision
      */
     public CollisionDetection(boolean collisionDetected, String objectDetected, CollisionDirection direction) {
+        this(collisionDetected, objectDetected, direction, 0, 0);
+    }
+
+    /**
+     * Constructs a CollisionDetection object with the given collision status, object detected, direction
+     * and minimum translation vector.
+     *
+     * @param collisionDetected true if a collision was detected, false otherwise
+     * @param objectDetected the name of the object that was collided with
+     * @param direction the direction of the collision
+     * @param translationX the horizontal part of the minimum translation vector
+     * @param translationY the vertical part of the minimum translation vector
+     */
+    public CollisionDetection(boolean collisionDetected, String objectDetected, CollisionDirection direction,
+            int translationX, int translationY) {
         this.collisionDetected = collisionDetected;
         this.objectDetected = objectDetected;
         this.direction = direction;
+        this.translationX = translationX;
+        this.translationY = translationY;
     }
 
     /**
@@ -65,10 +91,32 @@ public class CollisionDetection {
         return direction;
     }
 
+    /**
+     * Returns the horizontal move that takes the moving hitbox out of the other one.
+     * It is zero when the collision is resolved vertically.
+     *
+     * @return the horizontal part of the minimum translation vector
+     */
+    public int getTranslationX() {
+        return translationX;
+    }
+
+    /**
+     * Returns the vertical move that takes the moving hitbox out of the other one.
+     * It is zero when the collision is resolved horizontally.
+     *
+     * @return the vertical part of the minimum translation vector
+     */
+    public int getTranslationY() {
+        return translationY;
+    }
+
     /**
      * Detects whether a collision occurred between the movable object and another game object.
      * If a collision is detected, it returns a CollisionDetection object with the collision details.
-     * The method also triggers the collision handling of the movable object.
+     * When the other object is also collidable and the visible pixels of the two sprites touch,
+     * the contact is recorded in the {@link ContactBuffer}, and its gameplay response is resolved
+     * at the end of the tick. The pixel masks are checked only after the hitboxes intersect.
      *
      * @param obj the movable object whose collision is being checked
      * @param newHitbox the hitbox of the movable object in its new position
@@ -76,43 +124,44 @@ public class CollisionDetection {
      * @return a CollisionDetection object containing the collision details
      */
     public static CollisionDetection collisionDetection(Collidable obj, Rectangle newHitbox, GameObject other) {
-        if (newHitbox.intersects(other.getHitbox())) {
-            CollisionDirection dir = calculateDirection(newHitbox, other.getHitbox());
-            if(other instanceof Collidable) obj.collision((Collidable)other);
-            return new CollisionDetection(true, other.getClass().getSimpleName(), dir);
+        Rectangle o = other.getHitbox();
+        if (newHitbox.intersects(o)) {
+            if(other instanceof Collidable && masksOverlap(obj, newHitbox, other)) LevelContext.getInstance().getLevel().getContacts().add(obj, (Collidable) other);
+
+            // Penetration depth on both axes, the collision is resolved along the shallower one
+            int overlapX = Math.min(newHitbox.x + newHitbox.width, o.x + o.width) - Math.max(newHitbox.x, o.x);
+            int overlapY = Math.min(newHitbox.y + newHitbox.height, o.y + o.height) - Math.max(newHitbox.y, o.y);
+            int tx = 0;
+            int ty = 0;
+            CollisionDirection dir;
+            if (overlapX < overlapY) {
+                boolean otherOnRight = newHitbox.getCenterX() < o.getCenterX();
+                tx = otherOnRight ? -overlapX : overlapX;
+                dir = otherOnRight ? CollisionDirection.RIGHT : CollisionDirection.LEFT;
+            } else {
+                boolean otherBelow = newHitbox.getCenterY() < o.getCenterY();
+                ty = otherBelow ? -overlapY : overlapY;
+                dir = otherBelow ? CollisionDirection.BOTTOM : CollisionDirection.TOP;
+            }
+            return new CollisionDetection(true, other.getClass().getSimpleName(), dir, tx, ty);
         }
         return new CollisionDetection(false, null, null);
     }
 
     /**
-     * Calculates the direction of a collision based on the positions of two hitboxes.
+     * Checks if the pixel masks of two objects whose hitboxes intersect touch as well.
+     * Objects without a mask are solid in their whole hitbox.
      *
+     * @param obj the movable object whose collision is being checked
      * @param newHitbox the hitbox of the movable object in its new position
-     * @param other the hitbox of the other game object
-     * @return the direction of the collision (TOP, BOTTOM, RIGHT, LEFT)
+     * @param other the other game object
+     * @return true if the masks touch or one of the objects has no mask, false otherwise
      */
-    private static CollisionDirection calculateDirection(Rectangle newHitbox, Rectangle other) {
-        double centerX1 = newHitbox.getCenterX();
-        double centerY1 = newHitbox.getCenterY();
-        double centerX2 = other.getCenterX();
-        double centerY2 = other.getCenterY();
-
-        double deltaX = centerX2 - centerX1;
-        double deltaY = centerY2 - centerY1;
-
-        // Determines the collision direction based on the relative position of the hitboxes
-        if (Math.abs(deltaX) > Math.abs(deltaY)) {
-            if (deltaX > 0) {
-                return CollisionDirection.RIGHT;
-            } else {
-                return CollisionDirection.LEFT;
-            }
-        } else {
-            if (deltaY > 0) {
-                return CollisionDirection.BOTTOM;
-            } else {
-                return CollisionDirection.TOP;
-            }
-        }
+    private static boolean masksOverlap(Collidable obj, Rectangle newHitbox, GameObject other) {
+        if (!(obj instanceof GameObject)) return true;
+        CollisionMask a = ((GameObject) obj).getCollisionMask();
+        CollisionMask b = other.getCollisionMask();
+        if (a == null || b == null) return true;
+        return a.overlaps(newHitbox.x, newHitbox.y, b, other.getHitbox().x, other.getHitbox().y);
     }
 }
@@ -0,0 +1,139 @@
+package Model;
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The CollisionMask class describes which pixels of a sprite are solid, one bit per pixel,
+ * with every row of the sprite packed in a single long word.
+ * It is used after two hitboxes intersect, to tell if the visible parts of the sprites
+ * touch as well: the rows are shifted by the horizontal offset and compared with a
+ * bitwise AND, one word per overlapping row.
+ * The masks are built once from the images and registered by key, usually the class
+ * of the object they belong to.
+ */
+public class CollisionMask {
+
+    /** The widest mask that fits in a word. */
+    public static final int MAX_WIDTH = Long.SIZE;
+
+    /** The alpha above which a pixel is considered solid. */
+    private static final int ALPHA_THRESHOLD = 127;
+
+    /** The registered masks, by key. */
+    private static final Map<Object, CollisionMask> REGISTRY = new HashMap<>();
+
+    /** The rows of the mask, bit i of each row is the pixel in column i. */
+    private final long[] rows;
+
+    /** The width of the mask. */
+    private final int width;
+
+    /**
+     * Constructs a mask from its packed rows.
+     *
+     * @param rows the rows of the mask, bit i of each row being the pixel in column i
+     * @param width the width of the mask
+     * @throws IllegalArgumentException if the mask is wider than {@link #MAX_WIDTH}
+     */
+    public CollisionMask(long[] rows, int width) {
+        if (width > MAX_WIDTH) throw new IllegalArgumentException("Mask too wide: " + width);
+        this.rows = rows;
+        this.width = width;
+    }
+
+    /**
+     * Builds the mask of an image scaled to the given size, the same way it is drawn on screen.
+     * If the image could not be loaded the mask is completely solid.
+     *
+     * @param image the image of the sprite
+     * @param width the width the sprite is drawn with
+     * @param height the height the sprite is drawn with
+     * @return the mask of the sprite
+     */
+    public static CollisionMask fromImage(Image image, int width, int height) {
+        long[] rows = new long[height];
+        if (image == null || image.getWidth(null) <= 0) {
+            long full = width == MAX_WIDTH ? -1L : (1L << width) - 1;
+            Arrays.fill(rows, full);
+            return new CollisionMask(rows, width);
+        }
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = scaled.createGraphics();
+        g.drawImage(image, 0, 0, width, height, null);
+        g.dispose();
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                if ((scaled.getRGB(col, row) >>> 24) > ALPHA_THRESHOLD) {
+                    rows[row] |= 1L << col;
+                }
+            }
+        }
+        return new CollisionMask(rows, width);
+    }
+
+    /**
+     * Returns a mask that is solid wherever this mask or the other one are,
+     * useful to cover all the frames of an animation with one mask.
+     *
+     * @param other the other mask, of the same size
+     * @return the union of the two masks
+     */
+    public CollisionMask union(CollisionMask other) {
+        long[] merged = new long[Math.max(rows.length, other.rows.length)];
+        for (int row = 0; row < merged.length; row++) {
+            if (row < rows.length) merged[row] |= rows[row];
+            if (row < other.rows.length) merged[row] |= other.rows[row];
+        }
+        return new CollisionMask(merged, Math.max(width, other.width));
+    }
+
+    /**
+     * Checks if this mask, placed at the first position, touches the other mask placed at the second one.
+     *
+     * @param ax the x-coordinate of this mask
+     * @param ay the y-coordinate of this mask
+     * @param other the other mask
+     * @param bx the x-coordinate of the other mask
+     * @param by the y-coordinate of the other mask
+     * @return true if at least one solid pixel of the two masks is in the same place
+     */
+    public boolean overlaps(int ax, int ay, CollisionMask other, int bx, int by) {
+        int dx = bx - ax;
+        int dy = by - ay;
+        if (dx >= width || -dx >= other.width) return false;
+        int firstRow = Math.max(0, dy);
+        int lastRow = Math.min(rows.length, dy + other.rows.length);
+        for (int row = firstRow; row < lastRow; row++) {
+            long a = rows[row];
+            long b = other.rows[row - dy];
+            long common = dx >= 0 ? (a >>> dx) & b : a & (b >>> -dx);
+            if (common != 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Registers the mask to be used for a key.
+     *
+     * @param key the key, usually the class of the objects using the mask
+     * @param mask the mask
+     */
+    public static void register(Object key, CollisionMask mask) {
+        REGISTRY.put(key, mask);
+    }
+
+    /**
+     * Returns the mask registered for a key.
+     *
+     * @param key the key of the mask
+     * @return the mask, or null if none was registered
+     */
+    public static CollisionMask get(Object key) {
+        return REGISTRY.get(key);
+    }
+}
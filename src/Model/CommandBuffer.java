@@ -0,0 +1,110 @@
+package Model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The CommandBuffer class collects the structural changes asked for during a tick,
+ * the objects to add to the level and the ones to take away from it, and applies them
+ * all together once the tick is over, so that the lists of the level never change
+ * while they are being walked through.
+ * Removed objects are replaced by the last object of their list instead of shifting
+ * all the following ones, so each removal costs the same whatever the size of the list:
+ * the order of the objects in a list is not kept.
+ * It is only used by the game loop: the requests coming from other threads, like the
+ * keyboard, are turned into spawns by the loop itself, so the buffer needs no locking.
+ */
+public class CommandBuffer {
+
+    /** The objects to add to the level at the end of the tick. */
+    private final List<GameObject> spawns;
+
+    /** The lists the objects to remove are in, one per removal. */
+    private final List<List<? extends GameObject>> lists;
+
+    /** The positions of the objects to remove in their list, one per removal. */
+    private int[] indices;
+
+    /** The number of removals asked for during the tick. */
+    private int removals;
+
+    /**
+     * Constructs an empty CommandBuffer.
+     */
+    public CommandBuffer() {
+        spawns = new ArrayList<>();
+        lists = new ArrayList<>();
+        indices = new int[16];
+    }
+
+    /**
+     * Asks for an object to be added to the level at the end of the tick.
+     *
+     * @param obj the object to add
+     */
+    public void spawn(GameObject obj) {
+        spawns.add(obj);
+    }
+
+    /**
+     * Asks for an object to be removed from its list at the end of the tick.
+     * The removals of a list have to be asked for in increasing order of position,
+     * as they are found while walking through the list.
+     *
+     * @param list the list holding the object
+     * @param index the position of the object in the list
+     */
+    public void destroy(List<? extends GameObject> list, int index) {
+        if (removals == indices.length) indices = Arrays.copyOf(indices, removals * 2);
+        lists.add(list);
+        indices[removals++] = index;
+    }
+
+    /**
+     * Applies every change asked for during the tick and empties the buffer.
+     * The removals are applied from the last one asked for, so that the object moved
+     * into the place of a removed one has always been checked already.
+     *
+     * @param target the list the spawned objects are added to
+     * @param removed called with every object taken away from the level
+     * @return true if the level changed, false otherwise
+     */
+    public boolean apply(List<GameObject> target, Consumer<GameObject> removed) {
+        boolean changed = removals > 0 || !spawns.isEmpty();
+        for (int i = removals - 1; i >= 0; i--) {
+            removed.accept(swapRemove(lists.get(i), indices[i]));
+        }
+        lists.clear();
+        removals = 0;
+        target.addAll(spawns);
+        spawns.clear();
+        return changed;
+    }
+
+    /**
+     * Discards every change asked for, for example when the level changes.
+     */
+    public void clear() {
+        spawns.clear();
+        lists.clear();
+        removals = 0;
+    }
+
+    /**
+     * Removes an object from a list by moving the last object of the list into its place.
+     *
+     * @param <T> the type of the objects in the list
+     * @param list the list
+     * @param index the position of the object to remove
+     * @return the removed object
+     */
+    private static <T extends GameObject> T swapRemove(List<T> list, int index) {
+        int last = list.size() - 1;
+        T obj = list.get(index);
+        list.set(index, list.get(last));
+        list.remove(last);
+        return obj;
+    }
+}
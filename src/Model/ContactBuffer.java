@@ -0,0 +1,107 @@
+package Model;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The ContactBuffer class collects the contacts found by the collision detection while
+ * the objects are moving, and resolves their gameplay responses (hits, catches, pickups
+ * and pops) all together at the end of the tick.
+ * Every pair of objects is stored only once, whatever the order in which the two objects
+ * found each other, so each response happens exactly once per tick.
+ * Each level has a buffer of its own, held by its {@link LevelComponent}: a contact found
+ * just before the level changes is dropped with the level and never reaches the next one.
+ */
+public class ContactBuffer {
+
+    /** The pairs of objects in contact during the current tick, in the order they were found. */
+    private final Set<Contact> contacts;
+
+    /**
+     * Constructs an empty buffer.
+     */
+    public ContactBuffer() {
+        contacts = new LinkedHashSet<>();
+    }
+
+    /**
+     * Records a contact between two objects. If the same pair was already recorded
+     * during this tick, in either order, the contact is ignored, and so is a contact with
+     * an object already destroyed, that is still in the lists until the end of the tick.
+     *
+     * @param a the first object of the pair
+     * @param b the second object of the pair
+     */
+    public void add(Collidable a, Collidable b) {
+        if (a != b && !isDestroyed(a) && !isDestroyed(b)) contacts.add(new Contact(a, b));
+    }
+
+    /**
+     * Checks if an object of a contact was destroyed, so it must not respond any more.
+     *
+     * @param c the object
+     * @return true if the object is marked to be destroyed, false otherwise
+     */
+    private static boolean isDestroyed(Collidable c) {
+        return c instanceof GameObject && ((GameObject) c).isToDestroy();
+    }
+
+    /**
+     * Returns the number of distinct contacts recorded during this tick.
+     *
+     * @return the number of contacts
+     */
+    public int size() {
+        return contacts.size();
+    }
+
+    /**
+     * Resolves the gameplay response of every recorded contact, once for each side
+     * of the pair, and then empties the buffer for the next tick.
+     * The contacts of an object destroyed by an earlier response of the same tick are skipped.
+     */
+    public void resolve() {
+        for (Contact c : contacts) {
+            if (isDestroyed(c.first) || isDestroyed(c.second)) continue;
+            c.first.collision(c.second);
+            c.second.collision(c.first);
+        }
+        contacts.clear();
+    }
+
+    /**
+     * Discards every recorded contact without resolving it.
+     */
+    public void clear() {
+        contacts.clear();
+    }
+
+    /**
+     * An unordered pair of objects in contact. Two contacts are equal if they hold
+     * the same two objects, in any order.
+     */
+    private static final class Contact {
+
+        private final Collidable first;
+        private final Collidable second;
+
+        private Contact(Collidable first, Collidable second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Contact)) return false;
+            Contact that = (Contact) o;
+            return (first == that.first && second == that.second)
+                    || (first == that.second && second == that.first);
+        }
+
+        @Override
+        public int hashCode() {
+            return first.hashCode() ^ second.hashCode();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package Model;
+
+import java.util.Arrays;
+
+/**
+ * The DistanceField class holds, for every empty tile of a level, how many tiles it is
+ * from the tile of the player and which neighbouring tile is one step closer to it.
+ * The field is filled with a breadth-first search seeded at the player and it is shared
+ * by all the enemies: each one finds where to go with a single lookup, so the cost of
+ * the pursuit does not grow with the number of enemies.
+ * The enemies are a little bigger than a tile, so the search only crosses the tiles that
+ * are part of a block of two by two empty tiles, where their body fits.
+ * The search is run again only when the player moves to another tile.
+ */
+public class DistanceField {
+
+    /** The tile grid the field is computed on. */
+    private final TileGrid grid;
+
+    /** Whether each tile is part of a block of two by two empty tiles. */
+    private final boolean[] open;
+
+    /** The distance of each tile from the target, in tiles, or -1 if the target can't be reached. */
+    private final int[] distance;
+
+    /** The neighbouring tile one step closer to the target, for each tile, or -1. */
+    private final int[] next;
+
+    /** The queue of the search. */
+    private final int[] queue;
+
+    /** The tile the field is currently seeded at, or -1 if it was never computed. */
+    private int target;
+
+    /**
+     * Constructs an empty DistanceField for a level.
+     *
+     * @param grid the tile grid of the level
+     */
+    public DistanceField(TileGrid grid) {
+        this.grid = grid;
+        distance = new int[TileGrid.COLUMNS * TileGrid.ROWS];
+        next = new int[TileGrid.COLUMNS * TileGrid.ROWS];
+        queue = new int[TileGrid.COLUMNS * TileGrid.ROWS];
+        open = new boolean[TileGrid.COLUMNS * TileGrid.ROWS];
+        for (int row = 0; row < TileGrid.ROWS; row++) {
+            for (int col = 0; col < TileGrid.COLUMNS; col++) {
+                open[TileGrid.index(col, row)] = fits(col, row, -1, -1) || fits(col, row, 1, -1)
+                        || fits(col, row, -1, 1) || fits(col, row, 1, 1);
+            }
+        }
+        target = -1;
+    }
+
+    /**
+     * Checks if a tile and its neighbours on the given sides are all empty.
+     *
+     * @param col the column of the tile
+     * @param row the row of the tile
+     * @param dx the side of the horizontal neighbour, -1 or 1
+     * @param dy the side of the vertical neighbour, -1 or 1
+     * @return true if the block of two by two tiles is empty, false otherwise
+     */
+    private boolean fits(int col, int row, int dx, int dy) {
+        return isEmpty(col, row) && isEmpty(col + dx, row) && isEmpty(col, row + dy) && isEmpty(col + dx, row + dy);
+    }
+
+    /**
+     * Checks if a tile is inside the grid and empty.
+     *
+     * @param col the column of the tile
+     * @param row the row of the tile
+     * @return true if the tile is empty, false otherwise
+     */
+    private boolean isEmpty(int col, int row) {
+        return grid.contains(col, row) && grid.getTile(col, row) == TileGrid.EMPTY;
+    }
+
+    /**
+     * Points the field at an object, computing it again only if the object is on another tile
+     * than the one the field was seeded at.
+     *
+     * @param obj the object to pursue
+     */
+    public void update(GameObject obj) {
+        int tile = tileOf(obj);
+        if (tile < 0 || tile == target) return;
+        target = tile;
+        compute();
+    }
+
+    /**
+     * Fills the field with a breadth-first search over the open tiles, starting from the target.
+     */
+    private void compute() {
+        Arrays.fill(distance, -1);
+        Arrays.fill(next, -1);
+        int head = 0;
+        int tail = 0;
+        distance[target] = 0;
+        queue[tail++] = target;
+        while (head < tail) {
+            int tile = queue[head++];
+            int col = tile % TileGrid.COLUMNS;
+            int row = tile / TileGrid.COLUMNS;
+            tail = visit(tile, col - 1, row, tail);
+            tail = visit(tile, col + 1, row, tail);
+            tail = visit(tile, col, row - 1, tail);
+            tail = visit(tile, col, row + 1, tail);
+        }
+    }
+
+    /**
+     * Reaches a neighbour of a tile during the search, if a body fits in it and it was not reached yet.
+     *
+     * @param from the tile being expanded
+     * @param col the column of the neighbour
+     * @param row the row of the neighbour
+     * @param tail the end of the queue
+     * @return the new end of the queue
+     */
+    private int visit(int from, int col, int row, int tail) {
+        if (!grid.contains(col, row)) return tail;
+        int tile = TileGrid.index(col, row);
+        if (!open[tile] || distance[tile] >= 0) return tail;
+        distance[tile] = distance[from] + 1;
+        next[tile] = from;
+        queue[tail] = tile;
+        return tail + 1;
+    }
+
+    /**
+     * Returns the tile containing the centre of an object.
+     *
+     * @param obj the object
+     * @return the index of the tile, or -1 if the centre is outside the grid
+     */
+    private static int tileOf(GameObject obj) {
+        int col = TileGrid.columnOf(obj.getX() + obj.getWidth() / 2);
+        int row = TileGrid.rowOf(obj.getY() + obj.getHeight() / 2);
+        if (col < 0 || col >= TileGrid.COLUMNS || row < 0 || row >= TileGrid.ROWS) return -1;
+        return TileGrid.index(col, row);
+    }
+
+    /**
+     * Returns the tile an object has to move to in order to get one step closer to the target.
+     *
+     * @param obj the object moving
+     * @return the index of the tile, or -1 if the object is on the target or can't reach it
+     */
+    public int nextTile(GameObject obj) {
+        int tile = tileOf(obj);
+        return tile < 0 ? -1 : next[tile];
+    }
+
+    /**
+     * Returns how many tiles an object is from the target.
+     *
+     * @param obj the object
+     * @return the distance in tiles, or -1 if the object can't reach the target
+     */
+    public int getDistance(GameObject obj) {
+        int tile = tileOf(obj);
+        return tile < 0 ? -1 : distance[tile];
+    }
+}
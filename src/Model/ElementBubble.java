@@ -0,0 +1,56 @@
+package Model;
+
+/**
+ * The {@code ElementBubble} class represents a special bubble that appears in a level holding
+ * water or fire. It floats up like a bubble that missed its enemy, and when the player pops it,
+ * or a chain reaction reaches it, it releases its element in the {@link ElementGrid}.
+ */
+public class ElementBubble extends Bubble {
+
+    private final byte element; // The element released when the bubble pops
+
+    /**
+     * Constructs a new {@code ElementBubble} at the specified position.
+     *
+     * @param x       the x-coordinate of the bubble's position
+     * @param y       the y-coordinate of the bubble's position
+     * @param element the element it holds, {@link ElementGrid#WATER} or {@link ElementGrid#FIRE}
+     */
+    public ElementBubble(double x, double y, byte element) {
+        super(x, y, Direction.RIGHT);
+        this.element = element;
+        drift(); // Special bubbles float from the start
+    }
+
+    /**
+     * Gets the element the bubble holds
+     * @return {@link ElementGrid#WATER} or {@link ElementGrid#FIRE}
+     */
+    public byte getElement() {
+        return element;
+    }
+
+    /**
+     * Handles collisions between this object and another GameObject.
+     * The player pops the bubble at once, enemies are not caught.
+     *
+     * @param obj the other GameObject with which this object collides
+     */
+    @Override
+    public void collision(Collidable obj) {
+        if (obj instanceof Player) {
+            LevelContext.getInstance().getLevel().getChainReaction().seed(this); // Pop the bubble and every bubble touching it
+        }
+    }
+
+    /**
+     * Pops the bubble, releasing its element where it is.
+     *
+     * @return false, the bubble never holds an enemy
+     */
+    @Override
+    boolean pop() {
+        LevelContext.getInstance().getLevel().getElements().release(element, getX() + getWidth() / 2.0, getY() + getHeight() / 2.0);
+        return super.pop();
+    }
+}
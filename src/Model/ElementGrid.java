@@ -0,0 +1,399 @@
+package Model;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The ElementGrid class simulates the water and the fire released by the special bubbles,
+ * as a cellular automaton on the tiles of the level.
+ * Water falls down the gaps and runs along the platforms, both ways where it lands, until it
+ * meets a wall or leaves the level through the floor; the enemies it reaches ride the stream
+ * and are washed away at its end. Fire drops to the floor and spreads along it for a few tiles,
+ * burning the enemies and hurting the player while it lasts.
+ * The state of every tile is kept in plain arrays, one entry per tile, and the tiles are never
+ * game objects. Only the tiles at the front of a flood or a fire, the ones that spread at the
+ * next step, are visited; a tile dries or burns out when it comes out of a queue ordered by
+ * time, so the cost of a tick grows with the front and not with the size of the flood.
+ * A grid is built for the tiles of one level and lives in its {@link LevelComponent}:
+ * the water and the fire of a level are gone with it.
+ */
+public class ElementGrid {
+
+    /** A tile with nothing in it. */
+    public static final byte NONE = 0;
+
+    /** A tile with water running in it. */
+    public static final byte WATER = 1;
+
+    /** A tile on fire. */
+    public static final byte FIRE = 2;
+
+    /** The ticks between two steps of the water. */
+    private static final int WATER_STEP = 2;
+
+    /** The ticks between two steps of the fire. */
+    private static final int FIRE_STEP = 4;
+
+    /** The ticks a tile of water stays wet, 3 seconds at 30 FPS. */
+    private static final int WATER_LIFETIME = 90;
+
+    /** The ticks a tile of the floor burns, 5 seconds at 30 FPS. */
+    private static final int FIRE_LIFETIME = 150;
+
+    /** The tiles the fire spreads on each side of the point where it lands. */
+    private static final int FIRE_REACH = 6;
+
+    /** Downstream of a tile the water did not leave yet. */
+    private static final short FLOWING = -1;
+
+    /** Downstream of a tile the water stopped in. */
+    private static final short STOPPED = -2;
+
+    /** Downstream of a tile the water left the level from. */
+    private static final short DRAINED = -3;
+
+    /** The tile grid of the level the elements run on. */
+    private final TileGrid grid;
+
+    /** The element in each tile, indexed like the tile grid. */
+    private final byte[] element;
+
+    /** The side each tile spreads toward, -1 for left, 1 for right and 0 for both. */
+    private final byte[] side;
+
+    /** The tiles the fire in each tile can still spread on. */
+    private final byte[] reach;
+
+    /** The tile the water of each tile went on to, or one of the downstream constants. */
+    private final short[] downstream;
+
+    /** The tick each tile dries or burns out at. */
+    private final int[] expiry;
+
+    /** The tiles spreading at the next step, the first {@code frontCount} entries are valid. */
+    private int[] front;
+    private int frontCount;
+
+    /** The tiles found by the current step, they become the front of the next one. */
+    private int[] nextFront;
+    private int nextCount;
+
+    /**
+     * The tiles in the order they end, one queue for each lifetime: the water, the flames
+     * burning on a floor and the flames falling through the air.
+     */
+    private final ExpiryQueue waterQueue;
+    private final ExpiryQueue fireQueue;
+    private final ExpiryQueue flameQueue;
+
+    /** The handles of the enemies riding the water, and the tile each one is in. */
+    private int[] riders;
+    private int[] riderTiles;
+    private int riderCount;
+
+    /** The ticks since the level started. */
+    private int tick;
+
+    /**
+     * Constructs an empty element grid over the tiles of a level.
+     *
+     * @param grid the tile grid of the level
+     */
+    public ElementGrid(TileGrid grid) {
+        this.grid = grid;
+        int tiles = TileGrid.COLUMNS * TileGrid.ROWS;
+        element = new byte[tiles];
+        side = new byte[tiles];
+        reach = new byte[tiles];
+        downstream = new short[tiles];
+        expiry = new int[tiles];
+        front = new int[tiles];
+        nextFront = new int[tiles];
+        waterQueue = new ExpiryQueue(tiles);
+        fireQueue = new ExpiryQueue(tiles);
+        flameQueue = new ExpiryQueue(tiles);
+        riders = new int[8];
+        riderTiles = new int[8];
+    }
+
+    /**
+     * Releases an element at a point of the level, as a special bubble does when it pops.
+     * Nothing happens if the point is inside a wall or the tile already holds an element.
+     *
+     * @param kind the element, {@link #WATER} or {@link #FIRE}
+     * @param x the x-coordinate of the point
+     * @param y the y-coordinate of the point
+     */
+    public void release(byte kind, double x, double y) {
+        int col = TileGrid.columnOf(x);
+        int row = TileGrid.rowOf(y);
+        if (!grid.contains(col, row) || grid.isWalkable(col, row)) return;
+        int i = TileGrid.index(col, row);
+        if (element[i] != NONE) return;
+        fill(grid, i, kind, 0, kind == FIRE ? FIRE_REACH : 0);
+        front[frontCount++] = i;
+    }
+
+    /**
+     * Moves the simulation one tick: the tiles whose time is over dry or burn out, the fronts
+     * spread if it is their step, the riders are carried along and the fire hurts what it touches.
+     *
+     * @param player the player
+     * @param enemies the enemies of the level
+     */
+    public void update(Player player, List<Enemy> enemies) {
+        tick++;
+        expire(waterQueue);
+        expire(fireQueue);
+        expire(flameQueue);
+
+        boolean waterStep = tick % WATER_STEP == 0;
+        boolean fireStep = tick % FIRE_STEP == 0;
+        if (frontCount > 0 && (waterStep || fireStep)) {
+            nextCount = 0;
+            for (int k = 0; k < frontCount; k++) {
+                int i = front[k];
+                if (element[i] == WATER && waterStep) flow(grid, i);
+                else if (element[i] == FIRE && fireStep) burn(grid, i);
+                // A tile waiting for the step of its element stays in the front
+                else if (element[i] != NONE) nextFront[nextCount++] = i;
+            }
+            int[] t = front;
+            front = nextFront;
+            nextFront = t;
+            frontCount = nextCount;
+        }
+
+        if (waterStep) carryRiders();
+        for (Enemy e : enemies) {
+            // The enemies caught in a bubble are out of reach
+            if (e.isToDestroy() || e.isAttached() || !e.isVisible()) continue;
+            if (touching(e.getHitbox(), FIRE) >= 0) e.destroy();
+            else {
+                int wet = touching(e.getHitbox(), WATER);
+                if (wet >= 0) board(e, wet);
+            }
+        }
+        if (touching(player.getHitbox(), FIRE) >= 0) player.isHit();
+    }
+
+    /**
+     * Makes the water of a tile go on: down if there is nothing below it, else along the
+     * platform toward its side, or toward both sides if it just landed.
+     */
+    private void flow(TileGrid grid, int i) {
+        int col = i % TileGrid.COLUMNS;
+        int row = i / TileGrid.COLUMNS;
+        if (row + 1 >= TileGrid.ROWS) {
+            downstream[i] = DRAINED;
+            return;
+        }
+        int below = TileGrid.index(col, row + 1);
+        if (!grid.isWalkable(col, row + 1)) {
+            // Water runs into water below it, the two streams become one
+            downstream[i] = (short) below;
+            if (element[below] == NONE) spread(grid, below, WATER, side[i], 0);
+            return;
+        }
+        downstream[i] = STOPPED;
+        for (int s = -1; s <= 1; s += 2) {
+            if (side[i] != 0 && side[i] != s) continue;
+            int next = sideways(grid, col + s, row);
+            if (next < 0 || element[next] != NONE) continue;
+            spread(grid, next, WATER, s, 0);
+            if (downstream[i] == STOPPED) downstream[i] = (short) next;
+        }
+    }
+
+    /**
+     * Makes the fire of a tile go on: down if there is nothing below it, else along the floor
+     * toward its side, or toward both sides if it just landed, while it has reach left.
+     */
+    private void burn(TileGrid grid, int i) {
+        int col = i % TileGrid.COLUMNS;
+        int row = i / TileGrid.COLUMNS;
+        if (row + 1 >= TileGrid.ROWS) return;
+        if (!grid.isWalkable(col, row + 1)) {
+            int below = TileGrid.index(col, row + 1);
+            if (element[below] == NONE) spread(grid, below, FIRE, side[i], reach[i]);
+            return;
+        }
+        if (reach[i] == 0) return;
+        for (int s = -1; s <= 1; s += 2) {
+            if (side[i] != 0 && side[i] != s) continue;
+            int next = sideways(grid, col + s, row);
+            // The flames don't leave the floor they landed on
+            if (next < 0 || element[next] != NONE || !grid.isWalkable(col + s, row + 1)) continue;
+            spread(grid, next, FIRE, s, reach[i] - 1);
+        }
+    }
+
+    /**
+     * Returns the index of the tile next to another on the same row, or -1 if it is a wall or outside the level.
+     */
+    private static int sideways(TileGrid grid, int col, int row) {
+        if (!grid.contains(col, row) || grid.isWalkable(col, row)) return -1;
+        return TileGrid.index(col, row);
+    }
+
+    /**
+     * Puts an element in a tile reached by a front and adds the tile to the next front.
+     */
+    private void spread(TileGrid grid, int i, byte kind, int towards, int left) {
+        fill(grid, i, kind, towards, left);
+        nextFront[nextCount++] = i;
+    }
+
+    /**
+     * Puts an element in a tile and queues the tile for the tick it ends at.
+     * A flame in the air only lasts until it falls into the next tile.
+     */
+    private void fill(TileGrid grid, int i, byte kind, int towards, int left) {
+        element[i] = kind;
+        side[i] = (byte) towards;
+        reach[i] = (byte) left;
+        downstream[i] = FLOWING;
+        int col = i % TileGrid.COLUMNS;
+        int row = i / TileGrid.COLUMNS;
+        if (kind == WATER) {
+            expiry[i] = tick + WATER_LIFETIME;
+            waterQueue.add(i);
+        } else if (grid.isWalkable(col, row + 1)) {
+            expiry[i] = tick + FIRE_LIFETIME;
+            fireQueue.add(i);
+        } else {
+            expiry[i] = tick + FIRE_STEP + 1;
+            flameQueue.add(i);
+        }
+    }
+
+    /**
+     * Empties the tiles whose time is over. All the tiles of a queue last the same, which is why
+     * the flames in the air have a queue of their own: the tiles end in the order they were added
+     * and the first one still alive stops the search.
+     */
+    private void expire(ExpiryQueue queue) {
+        while (queue.size > 0 && expiry[queue.peek()] <= tick) element[queue.poll()] = NONE;
+    }
+
+    /**
+     * Puts an enemy reached by the water on the stream, if it is not riding it yet.
+     */
+    private void board(Enemy e, int tile) {
+        for (int k = 0; k < riderCount; k++) {
+            if (riders[k] == e.getHandle()) return;
+        }
+        if (riderCount == riders.length) {
+            riders = Arrays.copyOf(riders, riderCount * 2);
+            riderTiles = Arrays.copyOf(riderTiles, riderCount * 2);
+        }
+        riders[riderCount] = e.getHandle();
+        riderTiles[riderCount] = tile;
+        riderCount++;
+    }
+
+    /**
+     * Moves every rider one tile down the stream. A rider is washed away, and destroyed,
+     * when the water under it dries, stops or leaves the level.
+     */
+    private void carryRiders() {
+        int k = 0;
+        while (k < riderCount) {
+            GameObject obj = HandleAllocator.getInstance().resolve(riders[k]);
+            int i = riderTiles[k];
+            boolean gone = obj == null || obj.isToDestroy();
+            if (!gone && (element[i] != WATER || downstream[i] == STOPPED || downstream[i] == DRAINED)) {
+                obj.destroy();
+                gone = true;
+            }
+            if (gone) {
+                riderCount--;
+                riders[k] = riders[riderCount];
+                riderTiles[k] = riderTiles[riderCount];
+                continue;
+            }
+            if (downstream[i] >= 0) {
+                i = downstream[i];
+                riderTiles[k] = i;
+            }
+            // The rider sits on the bottom of its tile, centred on it
+            Enemy e = (Enemy) obj;
+            e.setX((i % TileGrid.COLUMNS) * Utility.TILE_SIZE + (Utility.TILE_SIZE - e.getWidth()) / 2.0);
+            e.setY((i / TileGrid.COLUMNS + 1) * Utility.TILE_SIZE - e.getHeight());
+            e.updateHitbox();
+            k++;
+        }
+    }
+
+    /**
+     * Finds a tile holding an element among the tiles a box overlaps.
+     *
+     * @return the index of the tile, or -1 if there is none
+     */
+    private int touching(Rectangle r, byte kind) {
+        int firstCol = Math.max(0, Math.floorDiv(r.x, Utility.TILE_SIZE));
+        int lastCol = Math.min(TileGrid.COLUMNS - 1, Math.floorDiv(r.x + r.width - 1, Utility.TILE_SIZE));
+        int lastRow = Math.min(TileGrid.ROWS - 1, Math.floorDiv(r.y + r.height - 1, Utility.TILE_SIZE));
+        for (int row = Math.max(0, Math.floorDiv(r.y, Utility.TILE_SIZE)); row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                int i = TileGrid.index(col, row);
+                if (element[i] == kind) return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the element in a tile.
+     *
+     * @param col the column of the tile
+     * @param row the row of the tile
+     * @return {@link #NONE}, {@link #WATER} or {@link #FIRE}
+     */
+    public byte getElement(int col, int row) {
+        return col >= 0 && col < TileGrid.COLUMNS && row >= 0 && row < TileGrid.ROWS
+                ? element[TileGrid.index(col, row)] : NONE;
+    }
+
+    /**
+     * Returns the number of tiles at the front of the floods and fires.
+     *
+     * @return the number of tiles spreading at their next step
+     */
+    public int getFrontSize() {
+        return frontCount;
+    }
+
+    /**
+     * A queue of tiles in a ring of ints, in the order they were added.
+     * A tile is only filled when it is empty, so it is in the queues at most once
+     * and a ring as big as the grid never overflows.
+     */
+    private static final class ExpiryQueue {
+
+        private final int[] items;
+        private int head;
+        private int size;
+
+        private ExpiryQueue(int capacity) {
+            items = new int[capacity];
+        }
+
+        private void add(int i) {
+            items[(head + size) % items.length] = i;
+            size++;
+        }
+
+        private int peek() {
+            return items[head];
+        }
+
+        private int poll() {
+            int i = items[head];
+            head = (head + 1) % items.length;
+            size--;
+            return i;
+        }
+    }
+}
@@ -23,6 +23,12 @@ public abstract class Enemy extends Entity {
     /** The current state of the enemy. */
     protected State state;
 
+    /** The state machine of the enemy, read from the data file for its type. */
+    protected final EnemyBehaviour behaviour;
+
+    /** How far, along its platform, an enemy sees the player. */
+    protected static final double SIGHT_RANGE = Utility.TILE_SIZE * 10;
+
     /**
      * Constructs an Enemy with the specified position and size, and sets its initial state to PATROL.
      *
@@ -33,32 +39,51 @@ public abstract class Enemy extends Entity {
      */
     public Enemy(double x, double y, int height, int width) {
         super(x, y, height, width);
+        behaviour = EnemyBehaviour.forType(getClass());
         patrol();
     }
 
     /**
-     * Changes the enemy's state to CAUGHT, hides the enemy by setting its visibility to false.
+     * Catches the enemy in a bubble. With the default behaviour it becomes CAUGHT and is hidden.
      */
     public void caught() {
-        state = State.CAUGHT;
-        setVisible(false);
+        fire(EnemyBehaviour.Event.CATCH);
     }
 
     /**
-     * Frees the enemy, changing its state to FREED, increasing its speed, and setting its visibility to true.
+     * Frees the enemy from its bubble. With the default behaviour it becomes FREED, faster and visible again.
      */
     public void free() {
-        state = State.FREED;
-        speed = NORMAL_SPEED * 1.3;
-        setVisible(true);
+        fire(EnemyBehaviour.Event.RELEASE);
     }
 
     /**
-     * Sets the enemy's state to PATROL and resets its speed to normal.
+     * Sets the enemy's state to PATROL, with the speed and visibility of that state.
      */
     public void patrol() {
-        state = State.PATROL;
-        speed = NORMAL_SPEED - (NORMAL_SPEED*0.10);
+        enter(State.PATROL);
+    }
+
+    /**
+     * Makes the state machine of the enemy take a step: the enemy enters the state its behaviour
+     * goes to from the current one on the given event, which is the same state if the event doesn't matter.
+     *
+     * @param event the event that happened
+     */
+    protected void fire(EnemyBehaviour.Event event) {
+        enter(behaviour.next(state, event));
+    }
+
+    /**
+     * Puts the enemy in a state, taking its speed, its visibility and whether it can attack from the behaviour.
+     *
+     * @param s the new state
+     */
+    private void enter(State s) {
+        state = s;
+        setSpeed(behaviour.getSpeed(s));
+        setVisible(behaviour.isVisible(s));
+        setFlag(CAN_ATTACK, behaviour.canAttack(s));
     }
 
     /**
@@ -70,32 +95,73 @@ public abstract class Enemy extends Entity {
         return state;
     }
 
+    /**
+     * Gets the behaviour of the enemy, read from the data file for its type.
+     *
+     * @return the behaviour of the enemy
+     */
+    public EnemyBehaviour getBehaviour() {
+        return behaviour;
+    }
+
     /**
      * Moves the enemy based on its interaction with the player and other game objects.
-     * If the enemy is on the same plane (y-coordinate) as the player, it moves towards the player.
-     * Otherwise, it exhibits random movement behavior with the chance to jump.
+     * If the enemy is on the same plane (y-coordinate) as the player and can see it, it moves towards the player
+     * following the distance field of the level.
+     * Otherwise it follows the navigation graph of the level toward the platform of the player, or the distance
+     * field when the graph has no way there, and only when neither does it exhibits random movement behavior
+     * with the chance to jump.
      *
      * @param others a list of other GameObjects for collision detection
      * @param player the player the enemy interacts with
      */
     public void move(List<GameObject> others, Player player) {
+        think(player);
+        act(others);
+    }
+
+    /**
+     * Decides where the enemy goes, setting its movement flags, without moving it.
+     * First the enemy looks for the player: seeing it within {@link #SIGHT_RANGE} or losing it is an event
+     * of its state machine, so the data file decides which enemies start attacking.
+     * See {@link #move} for how the decision is taken.
+     *
+     * @param player the player the enemy interacts with
+     */
+    public void think(Player player) {
+        boolean seen = (player.getY() + 20) >= getY() && getY() >= player.getY()
+                && SpatialQuery.getInstance().hasLineOfSight(this, player);
+        boolean inRange = seen && Math.abs(player.getX() - getX()) < SIGHT_RANGE;
+        fire(inRange ? EnemyBehaviour.Event.SEE_PLAYER : EnemyBehaviour.Event.LOSE_PLAYER);
+        decide(player, seen);
+    }
+
+    /**
+     * Sets the movement flags of the enemy once it has looked for the player.
+     *
+     * @param player the player the enemy interacts with
+     * @param seen true if the enemy is on the plane of the player and sees it
+     */
+    protected void decide(Player player, boolean seen) {
         Random r = new Random();
         double n = r.nextDouble() * 100;  // Generate a random value between 0 and 100
+        DistanceField field = SpatialQuery.getInstance().getDistanceField();
+        int next = field == null ? -1 : field.nextTile(this);
 
-        if ((player.getY() + 20) >= getY() && getY() >= player.getY()) {
-            // Enemy is on the same y-plane as the player, so it moves toward the player
-            double dx = player.getX() - getX();
-            directionX = (int) Math.signum(dx);
+        if (seen) {
+            // Enemy is on the same y-plane as the player and sees it, so it moves toward the player
+            directionX = next < 0 ? 0 : Integer.signum(next % TileGrid.COLUMNS - centreColumn());
+            if (directionX == 0) directionX = (int) Math.signum(player.getX() - getX());
 
             // Move based on direction
             if (directionX > 0) {
-                right = true;
-                left = false;
+                setFlag(RIGHT, true);
+                setFlag(LEFT, false);
             } else if (directionX < 0) {
-                left = true;
-                right = false;
+                setFlag(LEFT, true);
+                setFlag(RIGHT, false);
             }
-        } else {
+        } else if (!followNavigation(player) && !followDistanceField(next)) {
             // Check if the enemy is below the player within 4 tiles
             if (getY() > player.getY() + player.getHeight() && getY() <= player.getY() + 4 * Utility.TILE_SIZE) {
                 if (n < 50) {
@@ -108,31 +174,94 @@ public abstract class Enemy extends Entity {
             }
 
             // Random movement logic
-            if (right && n < 90) {
+            if (hasFlag(RIGHT) && n < 90) {
                 // 90% chance to continue moving right
-                left = false;
-            } else if (left && n < 90) {
+                setFlag(LEFT, false);
+            } else if (hasFlag(LEFT) && n < 90) {
                 // 90% chance to continue moving left
-                right = false;
-            } else if (!right && !left && n < 50) {
+                setFlag(RIGHT, false);
+            } else if (!hasFlag(RIGHT) && !hasFlag(LEFT) && n < 50) {
                 // 50% chance to start moving right if idle
-                right = true;
-            } else if (!right && !left && n < 100) {
+                setFlag(RIGHT, true);
+            } else if (!hasFlag(RIGHT) && !hasFlag(LEFT) && n < 100) {
                 // 50% chance to start moving left if idle
-                left = true;
+                setFlag(LEFT, true);
             } else {
                 // No movement
-                right = false;
-                left = false;
+                setFlag(RIGHT, false);
+                setFlag(LEFT, false);
             }
         }
+    }
+
+    /**
+     * Moves the enemy following its last decision. Enemies far from the player
+     * keep acting on the same decision for a few ticks before thinking again.
+     *
+     * @param others a list of other GameObjects for collision detection
+     */
+    public void act(List<GameObject> others) {
         if(state==State.CAUGHT) {
-        	right = false;
-        	left = false;
+        	setFlag(RIGHT, false);
+        	setFlag(LEFT, false);
         }
         updatePosition(others);
     }
 
+    /**
+     * Moves the enemy along the first link of the shortest way from its platform to the platform of the player:
+     * it walks to the column of the link, then jumps or keeps walking over the edge.
+     *
+     * @param player the player to reach
+     * @return true if a way was found, false if the enemy has to move on its own
+     */
+    protected boolean followNavigation(Player player) {
+        NavigationGraph navigation = SpatialQuery.getInstance().getNavigation();
+        if (navigation == null) return false;
+        int link = navigation.nextLink(navigation.nodeUnder(this), navigation.nodeUnder(player));
+        if (link < 0) return false;
+        if (hasFlag(JUMPING) || hasFlag(FALLING)) return true; // Keeps the direction it took off with
+
+        int dir = (int) Math.signum(navigation.getLinkColumn(link) - centreColumn());
+        int linkDir = navigation.getLinkDirection(link);
+        if (dir == 0 || dir == -linkDir) {
+            // At the column of the link, or already past it toward the edge
+            dir = linkDir;
+            if (navigation.getLinkType(link) == NavigationGraph.JUMP) setJump();
+        }
+        setFlag(RIGHT, dir > 0);
+        setFlag(LEFT, dir < 0);
+        return true;
+    }
+
+    /**
+     * Moves the enemy toward the next tile of the distance field, jumping if the tile is above.
+     * A tile straight below keeps the enemy going where it was going.
+     *
+     * @param next the next tile of the distance field, or -1 if the player can't be reached
+     * @return true if the enemy follows the field, false if the player can't be reached
+     */
+    protected boolean followDistanceField(int next) {
+        if (next < 0) return false;
+        if (hasFlag(JUMPING) || hasFlag(FALLING)) return true;
+        int dir = Integer.signum(next % TileGrid.COLUMNS - centreColumn());
+        if (dir != 0) {
+            setFlag(RIGHT, dir > 0);
+            setFlag(LEFT, dir < 0);
+        }
+        if (next / TileGrid.COLUMNS < TileGrid.rowOf(getY() + getHeight() / 2)) setJump();
+        return true;
+    }
+
+    /**
+     * Returns the column containing the centre of the enemy.
+     *
+     * @return the column of the centre
+     */
+    protected int centreColumn() {
+        return TileGrid.columnOf(getX() + getWidth() / 2);
+    }
+
     /**
      * Handles the collision event when the enemy collides with another GameObject.
      * If the collision is with the player, the player takes a hit if the enemy is not in the CAUGHT state.
@@ -0,0 +1,213 @@
+package Model;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The EnemyBehaviour class holds the state machine of a type of enemy: the speed and
+ * visibility of each {@link Enemy.State}, whether it can attack in it, the state reached from each state when an
+ * {@link Event} happens and the projectile pattern it fires when it attacks.
+ * The state machines are written in a data file, one section per enemy class, and compiled
+ * when first needed into plain arrays indexed by state and event, so a step of the machine
+ * is a single lookup. A new type of enemy only needs a section in the file, if any.
+ */
+public class EnemyBehaviour {
+
+    /** The events that can change the state of an enemy. */
+    public enum Event {
+        CATCH, RELEASE, SEE_PLAYER, LOSE_PLAYER
+    }
+
+    /** The file the behaviours are read from. */
+    private static final String FILE = "./res/Behaviour/Enemies.txt";
+
+    /** The section every other section starts from. */
+    private static final String BASE = "Enemy";
+
+    /** The states, by position. */
+    private static final Enemy.State[] STATES = Enemy.State.values();
+
+    /** The number of events. */
+    private static final int EVENTS = Event.values().length;
+
+    /** The compiled behaviours, by name of the enemy class, read on first use. */
+    private static Map<String, EnemyBehaviour> behaviours;
+
+    /** The state reached from each state on each event, indexed by state * EVENTS + event. */
+    private final int[] transitions;
+
+    /** The speed of each state. */
+    private final double[] speeds;
+
+    /** Whether the enemy is visible in each state. */
+    private final boolean[] visible;
+
+    /** Whether the enemy can attack in each state. */
+    private final boolean[] attacks;
+
+    /** The name of the projectile pattern fired when the enemy attacks, or null if it fires nothing. */
+    private String pattern;
+
+    /**
+     * Constructs a behaviour where no event changes the state, copying another one if given.
+     *
+     * @param base the behaviour to copy, or null
+     */
+    private EnemyBehaviour(EnemyBehaviour base) {
+        if (base != null) {
+            transitions = base.transitions.clone();
+            speeds = base.speeds.clone();
+            visible = base.visible.clone();
+            attacks = base.attacks.clone();
+            pattern = base.pattern;
+        } else {
+            transitions = new int[STATES.length * EVENTS];
+            speeds = new double[STATES.length];
+            visible = new boolean[STATES.length];
+            attacks = new boolean[STATES.length];
+            for (int state = 0; state < STATES.length; state++) {
+                for (int event = 0; event < EVENTS; event++) {
+                    transitions[state * EVENTS + event] = state;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the behaviour of a type of enemy, the one of its section of the file
+     * or the base one if the type has no section.
+     * The levels are read in the background too, so the file is loaded by one thread only.
+     *
+     * @param type the class of the enemy
+     * @return the behaviour of the enemy
+     */
+    public static synchronized EnemyBehaviour forType(Class<? extends Enemy> type) {
+        if (behaviours == null) behaviours = load(FILE);
+        EnemyBehaviour b = behaviours.get(type.getSimpleName());
+        return b != null ? b : behaviours.get(BASE);
+    }
+
+    /**
+     * Returns the state reached from a state when an event happens.
+     *
+     * @param state the current state
+     * @param event the event
+     * @return the new state, the same one if the event doesn't change it
+     */
+    public Enemy.State next(Enemy.State state, Event event) {
+        return STATES[transitions[state.ordinal() * EVENTS + event.ordinal()]];
+    }
+
+    /**
+     * Returns the speed of the enemy in a state.
+     *
+     * @param state the state
+     * @return the speed in pixels per tick
+     */
+    public double getSpeed(Enemy.State state) {
+        return speeds[state.ordinal()];
+    }
+
+    /**
+     * Checks if the enemy is visible in a state.
+     *
+     * @param state the state
+     * @return true if the enemy is visible, false otherwise
+     */
+    public boolean isVisible(Enemy.State state) {
+        return visible[state.ordinal()];
+    }
+
+    /**
+     * Checks if the enemy can attack in a state.
+     *
+     * @param state the state
+     * @return true if the enemy can attack, false otherwise
+     */
+    public boolean canAttack(Enemy.State state) {
+        return attacks[state.ordinal()];
+    }
+
+    /**
+     * Returns the projectile pattern the enemy fires when it attacks.
+     *
+     * @return the name of the pattern, or null if the enemy fires nothing
+     */
+    public String getAttackPattern() {
+        return pattern;
+    }
+
+    /**
+     * Reads the behaviours from a file and compiles them. The lines of each section
+     * are applied on top of the base section.
+     *
+     * @param filename the file to read
+     * @return the compiled behaviours, by section
+     * @throws IllegalStateException if the file can't be read
+     * @throws IllegalArgumentException if a line of the file is not valid
+     */
+    private static Map<String, EnemyBehaviour> load(String filename) {
+        Map<String, List<String[]>> sections = new HashMap<>();
+        List<String[]> current = null;
+        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                if (line.startsWith("[") && line.endsWith("]")) {
+                    current = new ArrayList<>();
+                    sections.put(line.substring(1, line.length() - 1).trim(), current);
+                } else if (current == null) {
+                    throw new IllegalArgumentException("Line outside of a section: " + line);
+                } else {
+                    current.add(line.split("\\s+"));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read the enemy behaviours from " + filename, e);
+        }
+
+        Map<String, EnemyBehaviour> compiled = new HashMap<>();
+        EnemyBehaviour base = compile(new EnemyBehaviour(null), sections.get(BASE));
+        compiled.put(BASE, base);
+        for (Map.Entry<String, List<String[]>> section : sections.entrySet()) {
+            if (section.getKey().equals(BASE)) continue;
+            compiled.put(section.getKey(), compile(new EnemyBehaviour(base), section.getValue()));
+        }
+        return compiled;
+    }
+
+    /**
+     * Applies the lines of a section to a behaviour.
+     *
+     * @param b the behaviour
+     * @param lines the lines of the section, split in words, can be null
+     * @return the behaviour
+     * @throws IllegalArgumentException if a line is not valid
+     */
+    private static EnemyBehaviour compile(EnemyBehaviour b, List<String[]> lines) {
+        if (lines == null) return b;
+        for (String[] words : lines) {
+            if (words[0].equals("STATE") && words.length == 5) {
+                int state = Enemy.State.valueOf(words[1]).ordinal();
+                b.speeds[state] = MovableObject.NORMAL_SPEED * Double.parseDouble(words[2]);
+                b.visible[state] = Boolean.parseBoolean(words[3]);
+                b.attacks[state] = Boolean.parseBoolean(words[4]);
+            } else if (words[0].equals("ON") && words.length == 4) {
+                int state = Enemy.State.valueOf(words[1]).ordinal();
+                int event = Event.valueOf(words[2]).ordinal();
+                b.transitions[state * EVENTS + event] = Enemy.State.valueOf(words[3]).ordinal();
+            } else if (words[0].equals("ATTACK") && words.length == 2) {
+                b.pattern = words[1];
+            } else {
+                throw new IllegalArgumentException("Invalid behaviour line: " + String.join(" ", words));
+            }
+        }
+        return b;
+    }
+}
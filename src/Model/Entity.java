@@ -1,8 +1,6 @@
 package Model;
 
 import java.awt.*;
-import java.time.Duration;
-import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -13,29 +11,43 @@ import java.util.List;
  */
 public abstract class Entity extends MovableObject implements Observable {
 
-	protected boolean canAttack;
-    /** Boolean flag for initiating a jump action. */
-    protected boolean jump;
+    /** The starting speed of a jump, as a multiple of the horizontal speed. */
+    protected static final double JUMP_SPEED_FACTOR = 1.9;
+
+    /** How much the jump speed decreases every tick of the jump. */
+    protected static final double JUMP_DECAY = 0.55;
+
+    /** Flag bit indicating whether the entity is allowed to attack. */
+    protected static final int CAN_ATTACK = 1 << 6;
+
+    /** Flag bit for initiating a jump action. */
+    protected static final int JUMP = 1 << 7;
     
-    /** Boolean flag for initiating an attack action. */
-    protected boolean attack;
+    /** Flag bit for initiating an attack action. */
+    protected static final int ATTACK = 1 << 8;
     
-    /** Boolean flag indicating whether the entity is currently jumping. */
-    protected boolean jumping;
+    /** Flag bit indicating whether the entity is currently jumping. */
+    protected static final int JUMPING = 1 << 9;
     
-    /** Boolean flag indicating whether the entity is currently falling. */
-    protected boolean falling;
+    /** Flag bit indicating whether the entity is currently falling. */
+    protected static final int FALLING = 1 << 10;
     
-    /** Boolean flag indicating whether the entity is currently attacking. */
-    protected boolean attacking;
+    /** Flag bit indicating whether the entity is currently attacking. */
+    protected static final int ATTACKING = 1 << 11;
     
-    /** The speed of the entity when it jumps. */
-    private double jumpSpeed;
+    /** The arc of the current jump, shared with every entity jumping with the same speed. */
+    private double[] jumpArc;
+
+    /** The ticks the current jump has risen for. */
+    private int jumpTick;
     
-    /** The time when the attack action started. */
-    protected LocalTime attackStartTime;
+    /** How many ticks an attack lasts before the entity can attack again, one second at 30 FPS. */
+    protected static final int ATTACK_DURATION = 30;
+
+    /** The ticks left before the current attack ends, 0 if the entity is not attacking. */
+    protected int attackTimer;
     
-    /** List of observers watching this entity. */
+    /** List of observers watching this entity, created when the first one is added. */
     private List<Observer> observers;
 
     /**
@@ -49,28 +61,37 @@ public abstract class Entity extends MovableObject implements Observable {
      */
     public Entity(double x, double y, int height, int width) {
         super(x, y, height, width);
-        observers = new ArrayList<>();
         direction = Direction.RIGHT;
-        jump = false;
-        jumpSpeed = 1.9 * NORMAL_SPEED;
-        falling = false;
-        jumping = false;
-        attack = false;
-        attacking = false;
-        attackStartTime = null;
-        canAttack = false;
     }
 
     /**
-     * Triggers the attack action for the entity. Sets the attack flag and records the start time.
+     * Puts the entity back in the game at a new position, on the ground and not attacking.
+     *
+     * @param x the new x-coordinate
+     * @param y the new y-coordinate
+     */
+    @Override
+    protected void respawn(double x, double y) {
+        super.respawn(x, y);
+        setFlag(JUMP, false);
+        jumpTick = 0;
+        setFlag(FALLING, false);
+        setFlag(JUMPING, false);
+        setFlag(ATTACK, false);
+        setFlag(ATTACKING, false);
+        attackTimer = 0;
+    }
+
+    /**
+     * Triggers the attack action for the entity. Sets the attack flag and starts the attack timer.
      *
      * @return true if the attack was initiated successfully, false if attack was already true
      */
     public boolean attack() {
-    	if(canAttack) {
-    		if (!attack) {
-                attack = true;
-                attackStartTime = LocalTime.now();
+    	if(hasFlag(CAN_ATTACK)) {
+    		if (!hasFlag(ATTACK)) {
+                setFlag(ATTACK, true);
+                attackTimer = ATTACK_DURATION;
                 return true;
             }
     	}
@@ -79,47 +100,57 @@ public abstract class Entity extends MovableObject implements Observable {
 
     /**
      * Sets the entity to jump if it is not currently falling or jumping.
+     * The jump follows the arc of the current speed, taken from the {@link JumpTable}.
      */
     public void setJump() {
-        if (!falling && !jumping && !jump) {
-            jumping = true;
-            jump = true;
+        if (!hasFlag(FALLING) && !hasFlag(JUMPING) && !hasFlag(JUMP)) {
+            setFlag(JUMPING, true);
+            setFlag(JUMP, true);
+            jumpArc = JumpTable.arc(speed);
+            jumpTick = 0;
         }
     }
 
     /**
      * Applies gravity to the entity and checks for collisions with other objects. 
-     * If the entity hits the ground, it stops falling.
+     * If the entity hits the ground, it stops falling. A sleeping entity is still
+     * resting on the same surface, so the downward check is skipped.
      *
      * @param others a list of other GameObjects for collision detection
      */
     @Override
     public void applyGravity(List<GameObject> others) {
-        falling = true;
+        if (hasFlag(SLEEPING)) return;
+        setFlag(FALLING, true);
         verticalSpeed += gravity;
         if (verticalSpeed > terminalVelocity) {
             verticalSpeed = terminalVelocity;
         }
 
-        Rectangle newHitbox = new Rectangle((int) x, (int) (y + verticalSpeed), (int) getWidth(), (int) getHeight());
+        // Walls and platforms are looked up in the tile grid, only entities are checked one by one
+        double landing = findLanding(y + verticalSpeed);
         CollisionDetection detection = new CollisionDetection(false, null, null);
-        for (GameObject obj : others) {
-    		if(!(obj instanceof Entity || obj instanceof Wall)) continue;
-            detection = CollisionDetection.collisionDetection(this, newHitbox, obj);
-            if (detection.isCollisionDetected() && detection.getDirection() == CollisionDetection.CollisionDirection.BOTTOM) {
-                if (verticalSpeed > 0) {
-                    y = obj.getY() - getHeight();
-                } else {
-                    y = obj.getY() + obj.getHeight();
+        if (landing < 0) {
+            Rectangle newHitbox = probe(x, y + verticalSpeed);
+            for (GameObject obj : others) {
+                if (obj == this || !(obj instanceof Entity)) continue;
+                detection = CollisionDetection.collisionDetection(this, newHitbox, obj);
+                if (detection.isCollisionDetected() && detection.getTranslationY() < 0) {
+                    landing = obj.getY();
+                    break;
                 }
-                verticalSpeed = 0;
-                jump = false;
-                falling = false;
-                break;
             }
         }
-        if (!detection.isCollisionDetected()) {
+
+        if (landing >= 0) {
+            y = landing - getHeight();
+            verticalSpeed = 0;
+            setFlag(JUMP, false);
+            setFlag(FALLING, false);
+            if (!hasFlag(MOVING)) rest();
+        } else if (!detection.isCollisionDetected()) {
             y += verticalSpeed;
+            restingTicks = 0;
         }
 
         if (this.y >= Utility.HEIGHT) {
@@ -132,95 +163,114 @@ public abstract class Entity extends MovableObject implements Observable {
     /**
      * Updates the entity's position and manages movement, gravity, and collision detection.
      *
-     * @param others a list of other GameObjects for collision detection
+     * @param others a list of other GameObjects for collision detection, shared by all the movers
+     *               of the tick: the entity skips itself in it and never changes it
      */
-    @SuppressWarnings("incomplete-switch")
     public void updatePosition(List<GameObject> others) {
-        if (attack) {
-            attacking = true;
+        if (hasFlag(ATTACK)) {
+            setFlag(ATTACKING, true);
         }
 
-        if (attackStartTime != null) {
-            if (Duration.between(attackStartTime, LocalTime.now()).getSeconds() >= 1) {
-                attack = false;
-                attackStartTime = null;
+        if (attackTimer > 0) {
+            attackTimer--;
+            if (attackTimer == 0) {
+                setFlag(ATTACK, false);
             }
         }
 
-        others.remove(this);
-        moving = false;
+        setFlag(MOVING, false);
 
-        if (!jumping) {
-            Rectangle newHitbox = new Rectangle(this.getHitbox());
+        if (!hasFlag(JUMPING)) {
+            double newX = this.x;
             boolean movingRight = false;
             boolean movingLeft = false;
 
-            if (right && !left) {
-                newHitbox.setLocation((int) (this.x + speed), (int) this.y);
+            if (hasFlag(RIGHT) && !hasFlag(LEFT)) {
+                newX = this.x + speed;
                 direction = Direction.RIGHT;
                 movingRight = true;
-            } else if (!right && left) {
-                newHitbox.setLocation((int) (this.x - speed), (int) this.y);
+            } else if (!hasFlag(RIGHT) && hasFlag(LEFT)) {
+                newX = this.x - speed;
                 direction = Direction.LEFT;
                 movingLeft = true;
             }
+            Rectangle newHitbox = probe(newX, this.y);
 
-            if (!newHitbox.equals(this.hitbox)) {
+            if (movingRight || movingLeft) {
                 for (GameObject obj : others) {
-                	if(obj instanceof Boulder || obj instanceof Bubble) continue;
+                	if(obj == this || obj instanceof Bubble) continue;
+                	if(obj instanceof Wall && ((Wall) obj).isOneWay()) continue; // Platforms can be walked through
                     CollisionDetection det = CollisionDetection.collisionDetection(this, newHitbox, obj);
                     if (det.isCollisionDetected()) {
-                    	if(obj instanceof Boulder || obj instanceof PowerUp || obj instanceof Bubble) continue;
-                        switch (det.getDirection()) {
-                            case LEFT -> newHitbox.setLocation((int) (obj.getX() + obj.getWidth()), newHitbox.y);
-                            case RIGHT -> newHitbox.setLocation((int) (obj.getX() - newHitbox.width), newHitbox.y);
-                        }
+                    	if(obj instanceof PowerUp || obj instanceof Bubble) continue;
+                        // Only the horizontal part is resolved here, the vertical one belongs to gravity
+                        newHitbox.translate(det.getTranslationX(), 0);
                     }
                 }
 
-                this.x = newHitbox.getX();
-                moving = movingRight || movingLeft;
+                this.x = settle(newX, newHitbox.x);
+                setFlag(MOVING, movingRight || movingLeft);
                 updateHitbox();
+                if (hasFlag(MOVING)) wakeUp();
             }
 
             applyGravity(others);
         } else {
-            jump(others);
+            wakeUp();
+            jump();
         }
 
         notifyObserver();
     }
 
     /**
-     * Manages the jump action, including collision detection while in the air.
-     *
-     * @param others a list of other GameObjects for collision detection
+     * Manages the jump action. The entity rises through one-way platforms and stops
+     * when it bumps its head on a solid wall, both looked up in the tile grid.
+     * At the top of the jump, if the entity is inside a platform, it is placed on it.
      */
-    private void jump(List<GameObject> others) {
-        verticalSpeed += jumpSpeed;
-        y -= verticalSpeed;
-        jumpSpeed -= 0.55;
+    private void jump() {
+        double rise = jumpArc[jumpTick++];
+        double ceiling = findCeiling(y - rise);
+        if (ceiling >= 0) {
+            y = ceiling;
+            jumpTick = jumpArc.length; // The head hit a wall, the jump ends here
+        } else {
+            y -= rise;
+        }
 
-        if (jumpSpeed <= 0) {
-            jumpSpeed = 1.9 * speed;
+        if (jumpTick >= jumpArc.length) {
+            jumpTick = 0;
             verticalSpeed = 0;
-            jumping = false;
-            for (GameObject obj : others) {
-                if (!this.equals(obj)) {
-                    CollisionDetection det = CollisionDetection.collisionDetection(this, this.getHitbox(), obj);
-                    if (det.isCollisionDetected()) {
-                        if (this.y > obj.getY() + obj.getHeight() / 2) {
-                            y = obj.getY() + obj.getHeight();
-                        } else {
-                            y = obj.getY() - getHeight();
-                        }
-                    }
-                }
+            setFlag(JUMPING, false);
+            double platform = findPlatformAround();
+            if (platform >= 0) {
+                y = platform - getHeight();
             }
         }
         updateHitbox();
     }
 
+    /**
+     * Looks in the tile grid for a platform the entity is inside of, with its head
+     * no lower than the middle of the platform, so it can be placed on top of it.
+     *
+     * @return the y-coordinate of the top of the platform, or -1 if there is none
+     */
+    private double findPlatformAround() {
+        TileGrid grid = SpatialQuery.getInstance().getGrid();
+        if (grid == null) return -1;
+        int firstCol = TileGrid.columnOf(x);
+        int lastCol = TileGrid.columnOf(x + getWidth() - 1);
+        for (int row = TileGrid.rowOf(y); row <= TileGrid.rowOf(y + getHeight() - 1); row++) {
+            double top = row * Utility.TILE_SIZE;
+            if (y > top + Utility.TILE_SIZE / 2.0) continue;
+            for (int col = firstCol; col <= lastCol; col++) {
+                if (grid.isWalkable(col, row)) return top;
+            }
+        }
+        return -1;
+    }
+
     /**
      * Adds an observer to the entity.
      *
@@ -228,6 +278,7 @@ public abstract class Entity extends MovableObject implements Observable {
      */
     @Override
     public void addObserver(Observer obv) {
+        if (observers == null) observers = new ArrayList<>(1);
         observers.add(obv);
     }
 
@@ -238,7 +289,7 @@ public abstract class Entity extends MovableObject implements Observable {
      */
     @Override
     public void removeObserver(Observer obv) {
-        observers.remove(obv);
+        if (observers != null) observers.remove(obv);
     }
 
     /**
@@ -246,6 +297,7 @@ public abstract class Entity extends MovableObject implements Observable {
      */
     @Override
     public void notifyObserver() {
+        if (observers == null) return;
         for (Observer o : observers) {
             o.update(this);
         }
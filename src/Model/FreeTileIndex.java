@@ -0,0 +1,111 @@
+package Model;
+
+import java.util.Random;
+
+/**
+ * The FreeTileIndex class keeps the set of tiles of a level where an object can be
+ * spawned, meaning the tile and the one on its right are both empty.
+ * The tiles are stored in a dense array with their position in it, so a tile can be
+ * added, removed or drawn uniformly at random in constant time.
+ */
+public class FreeTileIndex {
+
+    /** The free tiles, only the first {@code size} entries are valid. */
+    private final int[] free;
+
+    /** The position of each tile inside {@code free}, or -1 if the tile is not free. */
+    private final int[] position;
+
+    /** The number of free tiles. */
+    private int size;
+
+    /**
+     * Constructs the index of the free tiles of the given grid.
+     *
+     * @param grid the tile grid of the level
+     */
+    public FreeTileIndex(TileGrid grid) {
+        free = new int[TileGrid.COLUMNS * TileGrid.ROWS];
+        position = new int[TileGrid.COLUMNS * TileGrid.ROWS];
+        for (int row = 0; row < TileGrid.ROWS; row++) {
+            for (int col = 0; col < TileGrid.COLUMNS; col++) {
+                position[TileGrid.index(col, row)] = -1;
+                if (col + 1 < TileGrid.COLUMNS && grid.getTile(col, row) == TileGrid.EMPTY
+                        && grid.getTile(col + 1, row) == TileGrid.EMPTY) {
+                    release(col, row);
+                }
+            }
+        }
+    }
+
+    /**
+     * Constructs a copy of an index, that can change without changing the original.
+     *
+     * @param other the index to copy
+     */
+    public FreeTileIndex(FreeTileIndex other) {
+        free = other.free.clone();
+        position = other.position.clone();
+        size = other.size;
+    }
+
+    /**
+     * Returns the number of free tiles.
+     *
+     * @return the number of free tiles
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the tile at the given column and row is free.
+     *
+     * @param col the column of the tile
+     * @param row the row of the tile
+     * @return true if the tile is free, false otherwise
+     */
+    public boolean isFree(int col, int row) {
+        return position[TileGrid.index(col, row)] >= 0;
+    }
+
+    /**
+     * Marks a tile as occupied, removing it from the index.
+     *
+     * @param col the column of the tile
+     * @param row the row of the tile
+     */
+    public void occupy(int col, int row) {
+        int tile = TileGrid.index(col, row);
+        int pos = position[tile];
+        if (pos < 0) return;
+        // Moves the last free tile into the hole left by the removed one
+        int last = free[--size];
+        free[pos] = last;
+        position[last] = pos;
+        position[tile] = -1;
+    }
+
+    /**
+     * Marks a tile as free, adding it to the index.
+     *
+     * @param col the column of the tile
+     * @param row the row of the tile
+     */
+    public void release(int col, int row) {
+        int tile = TileGrid.index(col, row);
+        if (position[tile] >= 0) return;
+        free[size] = tile;
+        position[tile] = size++;
+    }
+
+    /**
+     * Draws a free tile uniformly at random.
+     *
+     * @param r the random generator to use
+     * @return the index of the tile, or -1 if there are no free tiles
+     */
+    public int randomTile(Random r) {
+        return size == 0 ? -1 : free[r.nextInt(size)];
+    }
+}
@@ -1,12 +1,15 @@
 package Model;
 
 import java.awt.*;
-import java.util.Objects;
 
 /**
  * The GameObject class represents a generic game object in a 2D space with
  * position, size, visibility, and destruction status. It also manages a hitbox 
  * for collision detection.
+ * Every object holds a handle from the {@link HandleAllocator} that identifies it
+ * while it is in the game: two objects are equal only if they have the same handle.
+ * An object can be attached to a parent, like an enemy caught in a bubble: while attached it
+ * has no position of its own, it is wherever its parent is, and nothing has to move it.
  */
 public abstract class GameObject {
 
@@ -16,20 +19,29 @@ public abstract class GameObject {
     /** The y-coordinate of the object. */
     protected double y;
     
-    /** The width of the object. */
-    private double width;
-    
-    /** The height of the object. */
-    private double height;
-    
-    /** The hitbox used for collision detection. */
+    /** The hitbox used for collision detection, which also holds the size of the object. */
     protected Rectangle hitbox;
     
-    /** Visibility state of the object. */
-    private boolean isVisible;
-    
-    /** Destruction state of the object. */
-    private boolean toDestroy;
+    /** Flag bit of the visibility state of the object. */
+    protected static final int VISIBLE = 1;
+
+    /** Flag bit of the destruction state of the object. */
+    protected static final int TO_DESTROY = 1 << 1;
+
+    /**
+     * The boolean states of the object packed in the bits of a single int.
+     * Subclasses add their own flags after the last bit used here.
+     */
+    private int flags;
+
+    /** Stamp of the last broadphase query that returned this object. */
+    int queryStamp;
+
+    /** The handle identifying the object. */
+    private int handle;
+
+    /** The object this one is attached to and moves with, null if it moves on its own. */
+    private GameObject parent;
 
     /**
      * Constructs a GameObject with the specified position, width, and height.
@@ -42,27 +54,28 @@ public abstract class GameObject {
     public GameObject(double x, double y, double height, double width) {
         this.x = x;
         this.y = y;
-        this.height = height;
-        this.width = width;
-        isVisible = true;
-        toDestroy = false;
-        initHitbox();
+        flags = VISIBLE;
+        initHitbox(width, height);
+        handle = HandleAllocator.getInstance().allocate(this);
     }
 
     /**
-     * Initializes the hitbox based on the current position and size.
+     * Initializes the hitbox based on the current position and the given size.
+     *
+     * @param width the width of the object
+     * @param height the height of the object
      */
-    private void initHitbox() {
+    private void initHitbox(double width, double height) {
         hitbox = new Rectangle((int) x, (int) y, (int) width, (int) height);
     }
     
     /**
-     * Returns the x-coordinate of the object.
+     * Returns the x-coordinate of the object, which is the one of its parent while it is attached.
      *
      * @return the x-coordinate
      */
     public double getX() {
-        return x;
+        return parent != null ? parent.getX() : x;
     }
 
     /**
@@ -75,12 +88,12 @@ public abstract class GameObject {
     }
 
     /**
-     * Returns the y-coordinate of the object.
+     * Returns the y-coordinate of the object, which is the one of its parent while it is attached.
      *
      * @return the y-coordinate
      */
     public double getY() {
-        return y;
+        return parent != null ? parent.getY() : y;
     }
 
     /**
@@ -92,20 +105,51 @@ public abstract class GameObject {
         this.y = y;
     }
 
+    /**
+     * Attaches the object to a parent: from now on it is wherever the parent is, and the game
+     * leaves it out of the movements, the AI and the collisions until it is detached.
+     *
+     * @param parent the object to move with
+     */
+    public void attachTo(GameObject parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Detaches the object from its parent, leaving it where the parent is now.
+     */
+    public void detach() {
+        if (parent == null) return;
+        GameObject p = parent;
+        parent = null;
+        setX(p.getX());
+        setY(p.getY());
+        updateHitbox();
+    }
+
+    /**
+     * Checks if the object is attached to a parent.
+     *
+     * @return true if the object moves with a parent, false otherwise
+     */
+    public boolean isAttached() {
+        return parent != null;
+    }
+
     /**
      * Checks if the object is marked for destruction.
      *
      * @return true if the object is to be destroyed, false otherwise
      */
     public boolean isToDestroy() {
-        return toDestroy;
+        return hasFlag(TO_DESTROY);
     }
 
     /**
      * Marks the object for destruction.
      */
     public void destroy() {
-        toDestroy = true;
+        setFlag(TO_DESTROY, true);
     }
 
     /**
@@ -114,7 +158,7 @@ public abstract class GameObject {
      * @return true if the object is visible, false otherwise
      */
     public boolean isVisible() {
-        return isVisible;
+        return hasFlag(VISIBLE);
     }
 
     /**
@@ -123,7 +167,27 @@ public abstract class GameObject {
      * @param visible true to make the object visible, false to hide it
      */
     public void setVisible(boolean visible) {
-        isVisible = visible;
+        setFlag(VISIBLE, visible);
+    }
+
+    /**
+     * Checks if a flag of the object is set.
+     *
+     * @param flag the bit of the flag
+     * @return true if the flag is set, false otherwise
+     */
+    protected final boolean hasFlag(int flag) {
+        return (flags & flag) != 0;
+    }
+
+    /**
+     * Sets or clears a flag of the object.
+     *
+     * @param flag the bit of the flag
+     * @param on true to set the flag, false to clear it
+     */
+    protected final void setFlag(int flag, boolean on) {
+        flags = on ? flags | flag : flags & ~flag;
     }
 
     /**
@@ -143,13 +207,61 @@ public abstract class GameObject {
         return hitbox;
     }
 
+    /**
+     * Puts the object back in the game at a new position, visible and no longer marked
+     * to be destroyed, as if it was just created. Used when an object is taken again
+     * from an {@link ObjectPool}. The object gets a new handle, so the handles kept
+     * from its previous life no longer refer to it.
+     *
+     * @param x the new x-coordinate
+     * @param y the new y-coordinate
+     */
+    protected void respawn(double x, double y) {
+        this.x = x;
+        this.y = y;
+        parent = null;
+        setFlag(VISIBLE, true);
+        setFlag(TO_DESTROY, false);
+        updateHitbox();
+        HandleAllocator handles = HandleAllocator.getInstance();
+        handles.release(handle);
+        handle = handles.allocate(this);
+    }
+
+    /**
+     * Returns the handle identifying the object.
+     *
+     * @return the handle
+     */
+    public int getHandle() {
+        return handle;
+    }
+
+    /**
+     * Frees the handle of the object once it has left the game, either for good
+     * or to wait in its pool. The object must not be used again until it respawns.
+     */
+    public void dispose() {
+        HandleAllocator.getInstance().release(handle);
+    }
+
+    /**
+     * Returns the pixel mask used to refine the collisions of the object,
+     * registered for its class.
+     *
+     * @return the collision mask, or null if the whole hitbox is solid
+     */
+    public CollisionMask getCollisionMask() {
+        return CollisionMask.get(getClass());
+    }
+
     /**
      * Returns the width of the object.
      *
      * @return the width of the object
      */
     public double getWidth() {
-        return width;
+        return hitbox.width;
     }
 
     /**
@@ -158,11 +270,12 @@ public abstract class GameObject {
      * @return the height of the object
      */
     public double getHeight() {
-        return height;
+        return hitbox.height;
     }
 
     /**
      * Compares this GameObject to another object for equality.
+     * Two objects are equal if they have the same handle, wherever they are.
      *
      * @param o the other object to compare
      * @return true if the objects are equal, false otherwise
@@ -170,19 +283,19 @@ public abstract class GameObject {
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        GameObject that = (GameObject) o;
-        return Objects.equals(hitbox, that.hitbox);
+        if (!(o instanceof GameObject)) return false;
+        return handle == ((GameObject) o).handle;
     }
 
     /**
-     * Returns a hash code for the GameObject based on its hitbox.
+     * Returns a hash code for the GameObject based on its handle, so it doesn't change
+     * while the object moves. It changes when the object respawns.
      *
      * @return the hash code
      */
     @Override
     public int hashCode() {
-        return Objects.hash(hitbox);
+        return handle;
     }
 
     /**
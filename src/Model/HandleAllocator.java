@@ -0,0 +1,151 @@
+package Model;
+
+import java.util.Arrays;
+
+/**
+ * The HandleAllocator class gives every game object a handle, an int that identifies it
+ * for as long as it is in the game. A handle is made of a slot, reused once its object is
+ * disposed, and of the generation of the slot, increased every time the slot is freed:
+ * a handle kept after its object was disposed never refers to the object that takes the slot next.
+ * Handles are cheap keys for maps and sets of objects, and can be turned back into
+ * their object while it is alive.
+ * There is a single allocator for the whole game, reached with {@link #getInstance()}: the player keeps its handle
+ * from one level to the next, and the generations must keep growing across the levels, or a handle kept from
+ * an old level could turn into an object of the new one.
+ */
+public class HandleAllocator {
+
+    /** The number of bits of a handle used for the slot. */
+    public static final int SLOT_BITS = 16;
+
+    /** The mask extracting the slot from a handle. */
+    private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+
+    /** The mask keeping the generation in the positive range of an int. */
+    private static final int GENERATION_MASK = (1 << (31 - SLOT_BITS)) - 1;
+
+    /** Singleton instance of the HandleAllocator. */
+    private static HandleAllocator instance;
+
+    /** The current generation of each slot. */
+    private int[] generations;
+
+    /** The object holding each slot, or null if the slot is free. */
+    private GameObject[] objects;
+
+    /** The free slots, only the first {@code free} entries are valid. */
+    private int[] freeSlots;
+
+    /** The number of free slots. */
+    private int free;
+
+    /** The number of slots used so far, free or not. */
+    private int used;
+
+    /**
+     * Private constructor to enforce the Singleton pattern.
+     */
+    private HandleAllocator() {
+        generations = new int[256];
+        objects = new GameObject[256];
+        freeSlots = new int[256];
+    }
+
+    /**
+     * Returns the singleton instance of the HandleAllocator.
+     *
+     * @return the single instance of HandleAllocator
+     */
+    public static synchronized HandleAllocator getInstance() {
+        if (instance == null) instance = new HandleAllocator();
+        return instance;
+    }
+
+    /**
+     * Gives a new handle to an object, reusing a free slot if there is one.
+     *
+     * @param obj the object
+     * @return the handle of the object
+     * @throws IllegalStateException if all the slots are taken
+     */
+    public synchronized int allocate(GameObject obj) {
+        int slot;
+        if (free > 0) {
+            slot = freeSlots[--free];
+        } else {
+            if (used > SLOT_MASK) throw new IllegalStateException("No handles left for " + obj);
+            if (used == objects.length) {
+                generations = Arrays.copyOf(generations, used * 2);
+                objects = Arrays.copyOf(objects, used * 2);
+                freeSlots = Arrays.copyOf(freeSlots, used * 2);
+            }
+            slot = used++;
+        }
+        objects[slot] = obj;
+        return (generations[slot] << SLOT_BITS) | slot;
+    }
+
+    /**
+     * Frees the slot of a handle, so that the handle no longer refers to its object.
+     * Freeing a handle that is no longer alive does nothing.
+     *
+     * @param handle the handle to free
+     */
+    public synchronized void release(int handle) {
+        if (!isAlive(handle)) return;
+        int slot = slotOf(handle);
+        objects[slot] = null;
+        generations[slot] = (generations[slot] + 1) & GENERATION_MASK;
+        freeSlots[free++] = slot;
+    }
+
+    /**
+     * Checks if a handle still refers to an object.
+     *
+     * @param handle the handle
+     * @return true if the object of the handle was not disposed yet, false otherwise
+     */
+    public synchronized boolean isAlive(int handle) {
+        int slot = slotOf(handle);
+        return slot < used && objects[slot] != null && generations[slot] == generationOf(handle);
+    }
+
+    /**
+     * Returns the object a handle refers to.
+     *
+     * @param handle the handle
+     * @return the object, or null if it was disposed
+     */
+    public synchronized GameObject resolve(int handle) {
+        return isAlive(handle) ? objects[slotOf(handle)] : null;
+    }
+
+    /**
+     * Returns the number of handles currently alive.
+     *
+     * @return the number of objects holding a handle
+     */
+    public synchronized int getAlive() {
+        return used - free;
+    }
+
+    /**
+     * Returns the slot of a handle.
+     *
+     * @param handle the handle
+     * @return the slot
+     */
+    public static int slotOf(int handle) {
+        return handle & SLOT_MASK;
+    }
+
+    /**
+     * Returns the generation of a handle.
+     *
+     * @param handle the handle
+     * @return the generation
+     */
+    public static int generationOf(int handle) {
+        return handle >>> SLOT_BITS;
+    }
+}
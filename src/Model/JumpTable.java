@@ -0,0 +1,184 @@
+package Model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The JumpTable class tabulates the jumps of the entities, so that nobody has to simulate them.
+ * A jump always starts with the same speed and loses the same amount every tick, so for a
+ * given horizontal speed it always rises by the same steps: these steps, the arc of the jump,
+ * are computed once and shared by every entity jumping with that speed.
+ * For a level, the table also holds where a jump taken straight up from each tile lands,
+ * following the same rules as {@link Entity}: the head stops on solid walls, one-way platforms
+ * are crossed on the way up, a body inside a platform at the top is placed on it, and otherwise
+ * it falls to the first platform below. So the AI can ask if a platform is in reach with a look-up.
+ * The bodies are taken as centred on the column they jump from, as the enemies are when they take a jump.
+ */
+public class JumpTable {
+
+    /** The height of the bodies the landings are computed for. */
+    public static final int BODY_HEIGHT = 20;
+
+    /** The width of the bodies the landings are computed for. */
+    public static final int BODY_WIDTH = 20;
+
+    /** The arcs computed so far, by jump speed. */
+    private static final Map<Double, double[]> arcs = new HashMap<>();
+
+    /** The arc of the jumps of the level. */
+    private final double[] arc;
+
+    /** The row a jump from each tile lands on, indexed like the tile grid, or -1. */
+    private final byte[] landing;
+
+    /**
+     * Builds the landing table of a level for the jumps of the given speed.
+     *
+     * @param grid the tile grid of the level
+     * @param speed the horizontal speed of the entities, which sets the strength of their jumps
+     */
+    public JumpTable(TileGrid grid, double speed) {
+        arc = arc(speed);
+        landing = new byte[TileGrid.COLUMNS * TileGrid.ROWS];
+        for (int row = 0; row < TileGrid.ROWS; row++) {
+            for (int col = 0; col < TileGrid.COLUMNS; col++) {
+                boolean stands = grid.getTile(col, row) == TileGrid.EMPTY && grid.isWalkable(col, row + 1);
+                landing[TileGrid.index(col, row)] = (byte) (stands ? land(grid, col, row) : -1);
+            }
+        }
+    }
+
+    /**
+     * Returns the arc of a jump: how much the entity rises at each of its ticks, in the same
+     * steps as {@link Entity#updatePosition}. The arcs are computed once for each speed and shared,
+     * so they must not be changed.
+     *
+     * @param speed the horizontal speed of the entity
+     * @return the rise of each tick of the jump, in pixels
+     */
+    public static synchronized double[] arc(double speed) {
+        double start = SubPixel.quantize(Entity.JUMP_SPEED_FACTOR * speed);
+        double[] steps = arcs.get(start);
+        if (steps != null) return steps;
+        double decay = SubPixel.quantize(Entity.JUMP_DECAY);
+        double jumpSpeed = start;
+        double verticalSpeed = 0;
+        int ticks = 0;
+        steps = new double[8];
+        // The first tick of a jump is always taken, even if there is no speed to rise with
+        do {
+            verticalSpeed += jumpSpeed;
+            if (ticks == steps.length) steps = Arrays.copyOf(steps, ticks * 2);
+            steps[ticks++] = verticalSpeed;
+            jumpSpeed -= decay;
+        } while (jumpSpeed > 0);
+        steps = Arrays.copyOf(steps, ticks);
+        arcs.put(start, steps);
+        return steps;
+    }
+
+    /**
+     * Follows a jump from a tile to the row it lands on.
+     *
+     * @return the row of the tile the jump ends standing on, or -1 if it falls out of the level
+     */
+    private int land(TileGrid grid, int col, int row) {
+        double left = col * Utility.TILE_SIZE + (Utility.TILE_SIZE - BODY_WIDTH) / 2.0;
+        int firstCol = TileGrid.columnOf(left);
+        int lastCol = TileGrid.columnOf(left + BODY_WIDTH - 1);
+        double top = (row + 1) * Utility.TILE_SIZE - BODY_HEIGHT;
+        for (double rise : arc) {
+            int ceiling = ceiling(grid, firstCol, lastCol, top, top - rise);
+            if (ceiling >= 0) {
+                top = (ceiling + 1) * Utility.TILE_SIZE;
+                break;
+            }
+            top -= rise;
+        }
+
+        // At the top, a body inside a platform is placed on it
+        for (int r = TileGrid.rowOf(top); r <= TileGrid.rowOf(top + BODY_HEIGHT - 1); r++) {
+            if (top > r * Utility.TILE_SIZE + Utility.TILE_SIZE / 2.0) continue;
+            if (walkable(grid, firstCol, lastCol, r)) return r - 1;
+        }
+
+        // Otherwise it falls on the first platform its feet are above, or at most half a tile into
+        double feet = top + BODY_HEIGHT;
+        for (int r = (int) Math.ceil((feet - Utility.TILE_SIZE / 2.0) / Utility.TILE_SIZE); r < TileGrid.ROWS; r++) {
+            if (walkable(grid, firstCol, lastCol, r)) return r - 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Looks for a solid wall the head bumps on while rising from a y-coordinate to another.
+     *
+     * @return the row of the wall, or -1 if nothing stops the head
+     */
+    private static int ceiling(TileGrid grid, int firstCol, int lastCol, double from, double to) {
+        int lastRow = (int) Math.ceil(to / Utility.TILE_SIZE) - 1;
+        for (int r = TileGrid.rowOf(from) - 1; r >= lastRow; r--) {
+            for (int c = firstCol; c <= lastCol; c++) {
+                if (grid.isSolid(c, r)) return r;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if any tile of a row under the body holds what lands on it.
+     */
+    private static boolean walkable(TileGrid grid, int firstCol, int lastCol, int row) {
+        for (int c = firstCol; c <= lastCol; c++) {
+            if (grid.isWalkable(c, row)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the row a jump taken straight up from a tile lands on.
+     * The row of the tile itself means the jump comes back down where it started.
+     *
+     * @param col the column of the tile the jump starts from
+     * @param row the row of the tile the jump starts from
+     * @return the row of the tile the jump ends standing on, or -1 if nothing can stand on the tile
+     *         or the jump falls out of the level
+     */
+    public int getLanding(int col, int row) {
+        if (col < 0 || col >= TileGrid.COLUMNS || row < 0 || row >= TileGrid.ROWS) return -1;
+        return landing[TileGrid.index(col, row)];
+    }
+
+    /**
+     * Checks if a jump taken straight up from a tile lands on a row.
+     *
+     * @param col the column of the tile the jump starts from
+     * @param row the row of the tile the jump starts from
+     * @param targetRow the row to reach
+     * @return true if the jump ends standing on the row, false otherwise
+     */
+    public boolean canReach(int col, int row, int targetRow) {
+        return targetRow >= 0 && getLanding(col, row) == targetRow;
+    }
+
+    /**
+     * Returns how high the jumps of the table rise when nothing stops them.
+     *
+     * @return the height in pixels
+     */
+    public double getHeight() {
+        double height = 0;
+        for (double rise : arc) height += rise;
+        return height;
+    }
+
+    /**
+     * Returns how many ticks the jumps of the table rise for when nothing stops them.
+     *
+     * @return the number of ticks
+     */
+    public int getTicks() {
+        return arc.length;
+    }
+}
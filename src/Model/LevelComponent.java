@@ -4,7 +4,12 @@ import java.util.List;
 
 /**
  * The LevelComponent class represents a component of a game level, consisting of walls and enemies.
- * This class holds and provides access to the walls and enemies present in a particular level.
+ * This class holds and provides access to the walls, enemies and special bubbles present in a particular level,
+ * together with the tile grid built from the walls, the index of its free tiles, the landings of the jumps,
+ * the navigation graph of its platforms, the distance field toward the player and the air currents carrying the bubbles.
+ * It also owns the systems whose state only makes sense inside the level, the contacts of the current tick,
+ * the bubbles waiting to start a chain reaction and the water and fire running on its tiles,
+ * so a new level starts them empty.
  */
 public class LevelComponent {
 
@@ -14,15 +19,64 @@ public class LevelComponent {
     /** A list of enemies in the level. */
     private List<Enemy> enemies;
 
+    /** A list of the special bubbles the level starts with. */
+    private List<ElementBubble> bubbles;
+
+    /** The tile grid of the level. */
+    private TileGrid grid;
+
+    /** The free tiles of the level, where new objects can be spawned, taken and given back by the power-ups. */
+    private FreeTileIndex freeTiles;
+
+    /** Where the jumps of the enemies land in the level. */
+    private JumpTable jumps;
+
+    /** The navigation graph of the platforms of the level. */
+    private NavigationGraph navigation;
+
+    /** The distance field toward the player, shared by the enemies of the level. */
+    private DistanceField distanceField;
+
+    /** The air currents carrying the floating bubbles of the level. */
+    private AirCurrents currents;
+
+    /** The contacts found during the current tick of the level. */
+    private ContactBuffer contacts;
+
+    /** The bubbles popped by the player in the level, waiting to pop the ones touching them. */
+    private ChainReaction chainReaction;
+
+    /** The water and the fire released by the special bubbles of the level. */
+    private ElementGrid elements;
+
     /**
-     * Constructs a LevelComponent with the specified lists of walls and enemies.
+     * Constructs a LevelComponent from the objects of a {@link LevelPrototype} and what it already built
+     * from its tile grid, so that only the distance field and the per-level systems are built again.
+     * It is the only way to create a level, through {@link LevelPrototype#instantiate(Wall.WallType)}.
      *
      * @param walls the list of walls present in the level
      * @param enemies the list of enemies present in the level
+     * @param bubbles the list of special bubbles present in the level
+     * @param currents the air currents of the level
+     * @param grid the tile grid of the level
+     * @param freeTiles the free tiles of the level, owned by this level only
+     * @param jumps where the jumps of the enemies land in the level
+     * @param navigation the navigation graph of the platforms of the level
      */
-    public LevelComponent(List<Wall> walls, List<Enemy> enemies) {
+    LevelComponent(List<Wall> walls, List<Enemy> enemies, List<ElementBubble> bubbles, AirCurrents currents,
+            TileGrid grid, FreeTileIndex freeTiles, JumpTable jumps, NavigationGraph navigation) {
         this.walls = walls;
         this.enemies = enemies;
+        this.bubbles = bubbles;
+        this.currents = currents;
+        this.grid = grid;
+        this.freeTiles = freeTiles;
+        this.jumps = jumps;
+        this.navigation = navigation;
+        distanceField = new DistanceField(grid);
+        contacts = new ContactBuffer();
+        chainReaction = new ChainReaction();
+        elements = new ElementGrid(grid);
     }
 
     /**
@@ -42,4 +96,94 @@ public class LevelComponent {
     public List<Enemy> getEnemies() {
         return enemies;
     }
+
+    /**
+     * Returns the list of special bubbles the level starts with.
+     *
+     * @return a list of {@link ElementBubble} objects
+     */
+    public List<ElementBubble> getBubbles() {
+        return bubbles;
+    }
+
+    /**
+     * Returns the tile grid of the level.
+     *
+     * @return the tile grid
+     */
+    public TileGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Returns the index of the free tiles of the level.
+     *
+     * @return the free tiles
+     */
+    public FreeTileIndex getFreeTiles() {
+        return freeTiles;
+    }
+
+    /**
+     * Returns where the jumps of the enemies land in the level.
+     *
+     * @return the jump table
+     */
+    public JumpTable getJumps() {
+        return jumps;
+    }
+
+    /**
+     * Returns the navigation graph of the platforms of the level.
+     *
+     * @return the navigation graph
+     */
+    public NavigationGraph getNavigation() {
+        return navigation;
+    }
+
+    /**
+     * Returns the air currents carrying the floating bubbles of the level.
+     *
+     * @return the air currents
+     */
+    public AirCurrents getCurrents() {
+        return currents;
+    }
+
+    /**
+     * Returns the distance field toward the player.
+     *
+     * @return the distance field
+     */
+    public DistanceField getDistanceField() {
+        return distanceField;
+    }
+
+    /**
+     * Returns the buffer of the contacts found during the current tick of the level.
+     *
+     * @return the contact buffer
+     */
+    public ContactBuffer getContacts() {
+        return contacts;
+    }
+
+    /**
+     * Returns the chain reaction popping the bubbles of the level.
+     *
+     * @return the chain reaction
+     */
+    public ChainReaction getChainReaction() {
+        return chainReaction;
+    }
+
+    /**
+     * Returns the water and the fire running in the level.
+     *
+     * @return the element grid
+     */
+    public ElementGrid getElements() {
+        return elements;
+    }
 }
@@ -0,0 +1,55 @@
+package Model;
+
+/**
+ * The LevelContext class tells the game objects which level is being played, so they can
+ * reach the systems it owns from inside their collision responses: the contact buffer the
+ * collision detection records into, the chain reaction the popped bubbles seed and the element
+ * grid the special bubbles release their element into.
+ * The controller sets the level every time one starts; until then there is no level, and asking
+ * for it is an error rather than a silent write into a buffer nobody reads.
+ * It follows the Singleton pattern.
+ */
+public class LevelContext {
+
+    /** Singleton instance of the LevelContext. */
+    private static LevelContext instance;
+
+    /** The level being played, null until the first level starts. */
+    private LevelComponent level;
+
+    /**
+     * Private constructor to enforce the Singleton pattern.
+     */
+    private LevelContext() {
+    }
+
+    /**
+     * Returns the singleton instance of the LevelContext.
+     *
+     * @return the single instance of LevelContext
+     */
+    public static LevelContext getInstance() {
+        if (instance == null) instance = new LevelContext();
+        return instance;
+    }
+
+    /**
+     * Sets the level being played.
+     *
+     * @param level the level that starts
+     */
+    public void setLevel(LevelComponent level) {
+        this.level = level;
+    }
+
+    /**
+     * Returns the level being played.
+     *
+     * @return the current level
+     * @throws IllegalStateException if no level has started yet
+     */
+    public LevelComponent getLevel() {
+        if (level == null) throw new IllegalStateException("No level is being played");
+        return level;
+    }
+}
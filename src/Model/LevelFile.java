@@ -0,0 +1,288 @@
+package Model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The LevelFile class reads and writes the compiled, binary form of the level files (".lvl").
+ * The file is mapped in memory and read straight from the mapping, with no text to split and no characters
+ * to look at, so even a large level takes a few microseconds to read.
+ * A level pack is many levels written one after the other in a single file, mapped once and read in one go.
+ * <p>
+ * All numbers are big-endian. The file starts with a header:
+ * <pre>
+ *   int   magic ("JBBL")
+ *   short version
+ *   short columns of the layout
+ *   short rows of the layout
+ *   short number of sections
+ * </pre>
+ * followed by the sections, each one a byte with its tag, an int with the length of its content and the content.
+ * Sections with an unknown tag are skipped, so more of them can be added without breaking the older readers:
+ * <ul>
+ *   <li>{@link #TILES}: the layout, two bits a tile ({@link TileGrid#EMPTY}, {@link TileGrid#SOLID} or
+ *       {@link TileGrid#ONE_WAY}) in row order, four tiles a byte starting from the lowest bits.
+ *       The layout can be larger than the tile grid, for walls drawn outside of it.</li>
+ *   <li>{@link #SPAWNS}: a short with the number of objects, then for each one a byte with its character
+ *       in the text files and two shorts with its column and row. Walls are not here, they are in the layout.</li>
+ *   <li>{@link #CURRENTS}: a short with the number of tiles, then for each one two shorts with its column
+ *       and row and a byte with its air current. Only the tiles whose current is not the default are here.</li>
+ * </ul>
+ */
+public class LevelFile {
+
+    /** The first bytes of every level file, "JBBL". */
+    public static final int MAGIC = 0x4A42424C;
+
+    /** The version of the format written. */
+    public static final short VERSION = 1;
+
+    /** The tag of the section holding the layout. */
+    public static final byte TILES = 1;
+
+    /** The tag of the section holding the objects the level starts with. */
+    public static final byte SPAWNS = 2;
+
+    /** The tag of the section holding the air currents. */
+    public static final byte CURRENTS = 3;
+
+    /** The number of bits of a tile in the layout. */
+    private static final int TILE_BITS = 2;
+
+    /**
+     * Private constructor, the class only has static methods.
+     */
+    private LevelFile() {
+    }
+
+    /**
+     * Reads a level from a binary level file, mapping it in memory.
+     *
+     * @param filename the name of the binary level file
+     * @return the prototype of the level, or null if an error occurs
+     */
+    public static LevelPrototype load(String filename) {
+        List<LevelPrototype> levels = loadPack(filename);
+        return levels != null && !levels.isEmpty() ? levels.get(0) : null;
+    }
+
+    /**
+     * Reads all the levels of a level pack, mapping the whole file in memory once.
+     * A single level file is a pack of one level.
+     *
+     * @param filename the name of the level pack
+     * @return the prototypes of the levels, in the order of the file, or null if an error occurs
+     */
+    public static List<LevelPrototype> loadPack(String filename) {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            List<LevelPrototype> levels = new ArrayList<>();
+            while (buffer.hasRemaining()) levels.add(read(buffer, filename));
+            return levels;
+        } catch (IOException | BufferUnderflowException | IndexOutOfBoundsException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Reads the level starting at the position of the buffer, leaving the position after it.
+     *
+     * @param buffer the mapped file
+     * @param filename the name of the file, for the errors
+     * @return the prototype of the level
+     * @throws IOException if the level is not in this format, or holds an air current that doesn't exist
+     */
+    private static LevelPrototype read(ByteBuffer buffer, String filename) throws IOException {
+        if (buffer.getInt() != MAGIC) throw new IOException("Not a level file: " + filename);
+        short version = buffer.getShort();
+        if (version > VERSION) throw new IOException("Unknown level file version " + version + ": " + filename);
+        int columns = buffer.getShort();
+        int rows = buffer.getShort();
+        int sections = buffer.getShort();
+
+        int tiles = -1;
+        int spawns = -1;
+        AirCurrents currents = new AirCurrents();
+        for (int s = 0; s < sections; s++) {
+            byte tag = buffer.get();
+            int length = buffer.getInt();
+            int start = buffer.position();
+            if (tag == TILES) tiles = start;
+            if (tag == SPAWNS) spawns = start;
+            if (tag == CURRENTS) {
+                int count = buffer.getShort();
+                for (int i = 0; i < count; i++) {
+                    int col = buffer.getShort();
+                    int row = buffer.getShort();
+                    byte current = buffer.get();
+                    // The text files only know the arrows, a value out of them is a broken or newer file
+                    if (current < AirCurrents.NONE || current > AirCurrents.RIGHT) {
+                        throw new IOException("Unknown air current " + current + ": " + filename);
+                    }
+                    if (col < 0 || col >= TileGrid.COLUMNS || row < 0 || row >= TileGrid.ROWS) {
+                        throw new IOException("Air current outside the tile grid: " + filename);
+                    }
+                    currents.setCurrent(col, row, current);
+                }
+            }
+            buffer.position(start + length);
+        }
+        if (tiles < 0 || spawns < 0) throw new IOException("Missing sections: " + filename);
+        int end = buffer.position();
+
+        // The walls come first, in the order the text file has them
+        int walls = 0;
+        for (int i = 0; i < columns * rows; i++) {
+            if (tileAt(buffer, tiles, i) != TileGrid.EMPTY) walls++;
+        }
+        int others = buffer.getShort(spawns);
+        char[] kinds = new char[walls + others];
+        short[] cols = new short[kinds.length];
+        short[] rws = new short[kinds.length];
+        int n = 0;
+        for (int i = 0; i < columns * rows; i++) {
+            byte tile = tileAt(buffer, tiles, i);
+            if (tile == TileGrid.EMPTY) continue;
+            kinds[n] = tile == TileGrid.SOLID ? 'W' : '-';
+            cols[n] = (short) (i % columns);
+            rws[n] = (short) (i / columns);
+            n++;
+        }
+        buffer.position(spawns + 2);
+        for (int i = 0; i < others; i++, n++) {
+            kinds[n] = (char) buffer.get();
+            cols[n] = buffer.getShort();
+            rws[n] = buffer.getShort();
+        }
+        buffer.position(end);
+        return new LevelPrototype(kinds, cols, rws, currents);
+    }
+
+    /**
+     * Reads a tile of the layout, without moving the position of the buffer.
+     *
+     * @param buffer the mapped file
+     * @param start where the layout starts in the file
+     * @param i the index of the tile in the layout
+     * @return the tile
+     */
+    private static byte tileAt(ByteBuffer buffer, int start, int i) {
+        int bits = buffer.get(start + i / 4) >> ((i % 4) * TILE_BITS);
+        return (byte) (bits & ((1 << TILE_BITS) - 1));
+    }
+
+    /**
+     * Writes a level to a binary level file.
+     *
+     * @param level the prototype of the level, read from its text file
+     * @param filename the name of the binary level file
+     * @throws IOException if the file can't be written
+     */
+    public static void write(LevelPrototype level, String filename) throws IOException {
+        writePack(List.of(level), filename);
+    }
+
+    /**
+     * Writes many levels to a level pack.
+     *
+     * @param levels the prototypes of the levels, in the order they are read back
+     * @param filename the name of the level pack
+     * @throws IOException if the file can't be written
+     */
+    public static void writePack(List<LevelPrototype> levels, String filename) throws IOException {
+        try (DataOutputStream file = new DataOutputStream(new FileOutputStream(filename))) {
+            for (LevelPrototype level : levels) write(level, file);
+        }
+    }
+
+    /**
+     * Writes a level at the end of a file.
+     */
+    private static void write(LevelPrototype level, DataOutputStream file) throws IOException {
+        // The layout holds every wall, even the ones outside the tile grid
+        int columns = TileGrid.COLUMNS;
+        int rows = TileGrid.ROWS;
+        int others = 0;
+        for (int i = 0; i < level.getSpawnCount(); i++) {
+            if (isWall(level.getSpawn(i))) {
+                columns = Math.max(columns, level.getColumn(i) + 1);
+                rows = Math.max(rows, level.getRow(i) + 1);
+            } else {
+                others++;
+            }
+        }
+
+        byte[] layout = new byte[(columns * rows + 3) / 4];
+        for (int i = 0; i < level.getSpawnCount(); i++) {
+            if (!isWall(level.getSpawn(i))) continue;
+            int tile = level.getRow(i) * columns + level.getColumn(i);
+            byte type = level.getSpawn(i) == 'W' ? TileGrid.SOLID : TileGrid.ONE_WAY;
+            layout[tile / 4] |= (byte) (type << ((tile % 4) * TILE_BITS));
+        }
+
+        ByteArrayOutputStream spawns = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(spawns);
+        out.writeShort(others);
+        for (int i = 0; i < level.getSpawnCount(); i++) {
+            if (isWall(level.getSpawn(i))) continue;
+            out.writeByte(level.getSpawn(i));
+            out.writeShort(level.getColumn(i));
+            out.writeShort(level.getRow(i));
+        }
+
+        ByteArrayOutputStream currents = new ByteArrayOutputStream();
+        out = new DataOutputStream(currents);
+        AirCurrents defaults = new AirCurrents();
+        int changed = 0;
+        for (int row = 0; row < TileGrid.ROWS; row++) {
+            for (int col = 0; col < TileGrid.COLUMNS; col++) {
+                if (level.getCurrents().getTileCurrent(col, row) != defaults.getTileCurrent(col, row)) changed++;
+            }
+        }
+        out.writeShort(changed);
+        for (int row = 0; row < TileGrid.ROWS; row++) {
+            for (int col = 0; col < TileGrid.COLUMNS; col++) {
+                byte current = level.getCurrents().getTileCurrent(col, row);
+                if (current == defaults.getTileCurrent(col, row)) continue;
+                out.writeShort(col);
+                out.writeShort(row);
+                out.writeByte(current);
+            }
+        }
+
+        file.writeInt(MAGIC);
+        file.writeShort(VERSION);
+        file.writeShort(columns);
+        file.writeShort(rows);
+        file.writeShort(3);
+        writeSection(file, TILES, layout);
+        writeSection(file, SPAWNS, spawns.toByteArray());
+        writeSection(file, CURRENTS, currents.toByteArray());
+    }
+
+    /**
+     * Writes a section: its tag, its length and its content.
+     */
+    private static void writeSection(DataOutputStream file, byte tag, byte[] content) throws IOException {
+        file.writeByte(tag);
+        file.writeInt(content.length);
+        file.write(content);
+    }
+
+    /**
+     * Checks if the character of an object is a wall, which goes in the layout.
+     */
+    private static boolean isWall(char spawn) {
+        return spawn == 'W' || spawn == '-';
+    }
+}
@@ -1,131 +1,153 @@
 package Model;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.File;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * The {@code LevelMap} enum defines different levels in the game, each associated with a set of walls and enemies.
- * Each level reads its structure from a corresponding text file and creates the necessary game objects.
+ * Each level reads its structure from a corresponding file, only once: the file is parsed into a
+ * {@link LevelPrototype} that creates the game objects every time the level starts.
+ * The binary file compiled from the text one by {@link LevelFile} is read when it is there and not older
+ * than the text file, otherwise the text file is.
+ * The prototypes are read by a background thread, so a level can be prefetched while the one before it is played
+ * and starting it doesn't have to wait for the file.
  */
 public enum LevelMap implements LevelSetter {
 
     /**
-     * Level one of the game, read from "levelOne.txt".
+     * Level one of the game, read from "levelOne.lvl", or "levelOne.txt".
      */
-    LEVEL_ONE {
-        @Override
-        public LevelComponent startingObjects() {
-            return readFromFile("./res/Graphics/LevelsMap/levelOne.txt", Wall.WallType.TYPE_ONE);
-        }
-    },
+    LEVEL_ONE("./res/Graphics/LevelsMap/levelOne", Wall.WallType.TYPE_ONE),
 
     /**
-     * Level two of the game, read from "levelTwo.txt".
+     * Level two of the game, read from "levelTwo.lvl", or "levelTwo.txt".
      */
-    LEVEL_TWO {
-        @Override
-        public LevelComponent startingObjects() {
-            return readFromFile("./res/Graphics/LevelsMap/levelTwo.txt", Wall.WallType.TYPE_TWO);
-        }
-    },
+    LEVEL_TWO("./res/Graphics/LevelsMap/levelTwo", Wall.WallType.TYPE_TWO),
 
     /**
-     * Level three of the game, read from "levelThree.txt".
+     * Level three of the game, read from "levelThree.lvl", or "levelThree.txt".
      */
-    LEVEL_THREE {
-        @Override
-        public LevelComponent startingObjects() {
-            return readFromFile("./res/Graphics/LevelsMap/levelThree.txt", Wall.WallType.TYPE_THREE);
-        }
-    },
-    
+    LEVEL_THREE("./res/Graphics/LevelsMap/levelThree", Wall.WallType.TYPE_THREE),
+
     /**
-     * Level four of the game, read from "levelFour.txt".
+     * Level four of the game, read from "levelFour.lvl", or "levelFour.txt".
      */
-    LEVEL_FOUR {
-        @Override
-        public LevelComponent startingObjects() {
-            return readFromFile("./res/Graphics/LevelsMap/levelFour.txt", Wall.WallType.TYPE_FOUR);
-        }
-    },
+    LEVEL_FOUR("./res/Graphics/LevelsMap/levelFour", Wall.WallType.TYPE_FOUR),
 
     /**
-     * Level five of the game, read from "levelFive.txt".
+     * Level five of the game, read from "levelFive.lvl", or "levelFive.txt".
      */
-    LEVEL_FIVE {
-        @Override
-        public LevelComponent startingObjects() {
-            return readFromFile("./res/Graphics/LevelsMap/levelFive.txt", Wall.WallType.TYPE_FIVE);
-        }
-    },
-    
+    LEVEL_FIVE("./res/Graphics/LevelsMap/levelFive", Wall.WallType.TYPE_FIVE),
+
     /**
-     * Level six of the game, read from "levelSix.txt".
+     * Level six of the game, read from "levelSix.lvl", or "levelSix.txt".
      */
-    LEVEL_SIX {
-        @Override
-        public LevelComponent startingObjects() {
-            return readFromFile("./res/Graphics/LevelsMap/levelSix.txt", Wall.WallType.TYPE_SIX);
-        }
-    },
-    
+    LEVEL_SIX("./res/Graphics/LevelsMap/levelSix", Wall.WallType.TYPE_SIX),
+
     /**
-     * Level seven of the game, read from "levelSeven.txt".
+     * Level seven of the game, read from "levelSeven.lvl", or "levelSeven.txt".
      */
-    LEVEL_SEVEN {
-        @Override
-        public LevelComponent startingObjects() {
-            return readFromFile("./res/Graphics/LevelsMap/levelSeven.txt", Wall.WallType.TYPE_SEVEN);
-        }
-    },
+    LEVEL_SEVEN("./res/Graphics/LevelsMap/levelSeven", Wall.WallType.TYPE_SEVEN),
+
     /**
-     * Level eight of the game, read from "levelEight.txt".
+     * Level eight of the game, read from "levelEight.lvl", or "levelEight.txt".
      */
-    LEVEL_EIGHT {
-        @Override
-        public LevelComponent startingObjects() {
-            return readFromFile("./res/Graphics/LevelsMap/levelEight.txt", Wall.WallType.TYPE_EIGHT);
-        }
-    };
+    LEVEL_EIGHT("./res/Graphics/LevelsMap/levelEight", Wall.WallType.TYPE_EIGHT);
+
+    /** The thread reading the levels in the background, which doesn't keep the game open. */
+    private static final ExecutorService LOADER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "LevelLoader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** The name of the files containing the level layout, without the extension. */
+    private final String path;
+
+    /** The wall type used for the walls in this level. */
+    private final Wall.WallType type;
+
+    /** The prototype of the level, read or being read, null until it is first asked for. */
+    private Future<LevelPrototype> prototype;
 
     /**
-     * Reads the level layout from a file and generates the walls and enemies based on the content.
-     * The file specifies where to place walls ('W'), ZenChan enemies ('Z'), and Mighta enemies ('M').
+     * Constructs a level read from the given files.
      *
-     * @param filename the name of the file containing the level layout
+     * @param path the name of the files containing the level layout, without the extension
      * @param type the wall type used for the walls in this level
-     * @return a {@link LevelComponent} containing the walls and enemies in the level, or null if an error occurs
      */
-    private static LevelComponent readFromFile(String filename, Wall.WallType type) {
-        List<Enemy> enemies = new ArrayList<>();
-        List<Wall> walls = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-            String line;
-            int y = 0;
-            while ((line = br.readLine()) != null) {
-                char[] c = line.toCharArray();
-                int x = 0;
-                for (int col = 0; col < c.length; col++) {
-                    if (c[col] == 'W') {
-                        walls.add(new Wall(x, y, type));
-                    } else if (c[col] == 'Z') {
-                        enemies.add(new ZenChan(x, y));
-                    } else if (c[col] == 'M') {
-                        enemies.add(new Mighta(x, y));
-                    } else if (c[col] == 'B') {
-                    	enemies.add(new Blubba(x, y));
-                    }
-                    x += 18; // Assuming 18 is the tile size
-                }
-                y += 18;
-            }
-            return new LevelComponent(walls, enemies);
-        } catch (IOException e) {
+    LevelMap(String path, Wall.WallType type) {
+        this.path = path;
+        this.type = type;
+    }
+
+    /**
+     * Returns the name of the text file of the level.
+     *
+     * @return the name of the ".txt" file
+     */
+    public String getTextFile() {
+        return path + ".txt";
+    }
+
+    /**
+     * Returns the name of the binary file of the level.
+     *
+     * @return the name of the ".lvl" file
+     */
+    public String getBinaryFile() {
+        return path + ".lvl";
+    }
+
+    /**
+     * Starts reading the level in the background, if it was never read. It returns at once.
+     */
+    public synchronized void prefetch() {
+        if (prototype == null) prototype = LOADER.submit(this::read);
+    }
+
+    /**
+     * Reads the level from its binary file if it is up to date, from its text file otherwise,
+     * and prepares it to be played.
+     *
+     * @return the prototype, or null if the file couldn't be read
+     */
+    private LevelPrototype read() {
+        File binary = new File(getBinaryFile());
+        File text = new File(getTextFile());
+        LevelPrototype p;
+        if (binary.exists() && binary.lastModified() >= text.lastModified()) p = LevelFile.load(binary.getPath());
+        else p = LevelPrototype.read(text.getPath());
+        if (p != null) p.prepare();
+        return p;
+    }
+
+    /**
+     * Returns the prototype of the level, waiting for it if it is still being read.
+     *
+     * @return the prototype, or null if the file couldn't be read
+     */
+    public LevelPrototype getPrototype() {
+        prefetch();
+        try {
+            return prototype.get();
+        } catch (InterruptedException | ExecutionException e) {
             e.printStackTrace();
             return null;
         }
     }
+
+    /**
+     * Creates the walls, enemies and special bubbles of the level from its prototype.
+     *
+     * @return a {@link LevelComponent} containing the walls, enemies and special bubbles in the level, or null if an error occurs
+     */
+    @Override
+    public LevelComponent startingObjects() {
+        LevelPrototype p = getPrototype();
+        return p != null ? p.instantiate(type) : null;
+    }
 }
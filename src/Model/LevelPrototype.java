@@ -0,0 +1,199 @@
+package Model;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The LevelPrototype class holds a level as it is read from its file, parsed once and never changed,
+ * either from the text file or from the binary one written by {@link LevelFile}:
+ * the tile grid with what is built on it (the free tiles, the landings of the jumps, the navigation graph
+ * and the air currents) and the list of the objects the level starts with, each one a character of the
+ * file and the column and row it was found on.
+ * Every time the level starts, {@link #instantiate(Wall.WallType)} creates new walls, enemies and bubbles from the list
+ * and shares the rest, copying only what changes while the level is played, so no file is read again.
+ */
+public class LevelPrototype {
+
+    /** The characters of the objects a level can start with. */
+    public static final String SPAWNS = "W-ZMBwf";
+
+    /** The character of each object the level starts with, in the order of the file. */
+    private final char[] spawns;
+
+    /** The column of each object the level starts with, indexed like {@link #spawns}. */
+    private final short[] cols;
+
+    /** The row of each object the level starts with, indexed like {@link #spawns}. */
+    private final short[] rows;
+
+    /** The tile grid of the level. */
+    private final TileGrid grid;
+
+    /** The free tiles of the level before anything spawns, copied by every instance, null until prepared. */
+    private FreeTileIndex freeTiles;
+
+    /** Where the jumps of the enemies land in the level, null until prepared. */
+    private JumpTable jumps;
+
+    /** The navigation graph of the platforms of the level, null until prepared. */
+    private NavigationGraph navigation;
+
+    /** The air currents carrying the floating bubbles of the level. */
+    private final AirCurrents currents;
+
+    /**
+     * Constructs the prototype of a level from the objects found in its file. The walls ('W')
+     * and the one-way platforms ('-') among them make the tile grid.
+     *
+     * @param spawns the character of each object
+     * @param cols the column of each object
+     * @param rows the row of each object
+     * @param currents the air currents of the level
+     */
+    LevelPrototype(char[] spawns, short[] cols, short[] rows, AirCurrents currents) {
+        this.spawns = spawns;
+        this.cols = cols;
+        this.rows = rows;
+        this.currents = currents;
+        grid = new TileGrid(new ArrayList<>());
+        for (int i = 0; i < spawns.length; i++) {
+            if (spawns[i] == 'W') grid.setTile(cols[i], rows[i], TileGrid.SOLID);
+            if (spawns[i] == '-') grid.setTile(cols[i], rows[i], TileGrid.ONE_WAY);
+        }
+    }
+
+    /**
+     * Builds what the level needs from its tile grid, the free tiles, the jumps and the navigation graph,
+     * if it wasn't done yet. It takes much longer than reading the level, so the levels of a pack are only
+     * prepared when they are played, or in the background before that.
+     */
+    public synchronized void prepare() {
+        if (navigation != null) return;
+        freeTiles = new FreeTileIndex(grid);
+        jumps = new JumpTable(grid, EnemyBehaviour.forType(Enemy.class).getSpeed(Enemy.State.PATROL));
+        navigation = new NavigationGraph(grid, jumps);
+    }
+
+    /**
+     * Reads the level layout from a file.
+     * The file specifies where to place walls ('W'), one-way platforms ('-'), ZenChan enemies ('Z'),
+     * Mighta enemies ('M'), Blubba enemies ('B'), water bubbles ('w') and fire bubbles ('f').
+     * The arrows ('<', '>', '^' and 'v') change the air current of their tile.
+     *
+     * @param filename the name of the file containing the level layout
+     * @return the prototype of the level, or null if an error occurs
+     */
+    public static LevelPrototype read(String filename) {
+        StringBuilder spawns = new StringBuilder();
+        List<short[]> tiles = new ArrayList<>();
+        AirCurrents currents = new AirCurrents();
+        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
+            String line;
+            int row = 0;
+            while ((line = br.readLine()) != null) {
+                char[] c = line.toCharArray();
+                for (int col = 0; col < c.length; col++) {
+                    if (AirCurrents.fromArrow(c[col]) >= 0) {
+                        currents.setCurrent(col, row, AirCurrents.fromArrow(c[col]));
+                    } else if (SPAWNS.indexOf(c[col]) >= 0) {
+                        spawns.append(c[col]);
+                        tiles.add(new short[] {(short) col, (short) row});
+                    }
+                }
+                row++;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+        short[] cols = new short[tiles.size()];
+        short[] rows = new short[tiles.size()];
+        for (int i = 0; i < cols.length; i++) {
+            cols[i] = tiles.get(i)[0];
+            rows[i] = tiles.get(i)[1];
+        }
+        return new LevelPrototype(spawns.toString().toCharArray(), cols, rows, currents);
+    }
+
+    /**
+     * Creates the objects the level starts with, new ones every time, and puts them in a
+     * {@link LevelComponent} sharing the tile grid, the jumps, the navigation graph and the air currents
+     * of the prototype. The free tiles are copied and the distance field is new, as they change during the level.
+     *
+     * @param type the wall type used for the walls in this level
+     * @return the level, ready to be played
+     */
+    public LevelComponent instantiate(Wall.WallType type) {
+        prepare();
+        List<Wall> walls = new ArrayList<>();
+        List<Enemy> enemies = new ArrayList<>();
+        List<ElementBubble> bubbles = new ArrayList<>();
+        for (int i = 0; i < spawns.length; i++) {
+            // The objects are placed on the tile they were found on, even outside the grid
+            int x = cols[i] * Utility.TILE_SIZE;
+            int y = rows[i] * Utility.TILE_SIZE;
+            switch (spawns[i]) {
+                case 'W' -> walls.add(new Wall(x, y, type));
+                case '-' -> walls.add(new Wall(x, y, type, true));
+                case 'Z' -> enemies.add(new ZenChan(x, y));
+                case 'M' -> enemies.add(new Mighta(x, y));
+                case 'B' -> enemies.add(new Blubba(x, y));
+                case 'w' -> bubbles.add(new ElementBubble(x, y, ElementGrid.WATER));
+                case 'f' -> bubbles.add(new ElementBubble(x, y, ElementGrid.FIRE));
+            }
+        }
+        return new LevelComponent(walls, enemies, bubbles, currents, grid, new FreeTileIndex(freeTiles),
+                jumps, navigation);
+    }
+
+    /**
+     * Returns the number of objects the level starts with, walls included.
+     *
+     * @return the number of objects
+     */
+    public int getSpawnCount() {
+        return spawns.length;
+    }
+
+    /**
+     * Returns the character of an object the level starts with.
+     *
+     * @param i the index of the object
+     * @return the character of the object in the level file
+     */
+    public char getSpawn(int i) {
+        return spawns[i];
+    }
+
+    /**
+     * Returns the column of an object the level starts with.
+     *
+     * @param i the index of the object
+     * @return the column, which can be outside the tile grid
+     */
+    public int getColumn(int i) {
+        return cols[i];
+    }
+
+    /**
+     * Returns the row of an object the level starts with.
+     *
+     * @param i the index of the object
+     * @return the row, which can be outside the tile grid
+     */
+    public int getRow(int i) {
+        return rows[i];
+    }
+
+    /**
+     * Returns the air currents of the level, shared by all its instances: they must not be changed.
+     *
+     * @return the air currents
+     */
+    public AirCurrents getCurrents() {
+        return currents;
+    }
+}
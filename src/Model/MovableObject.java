@@ -1,5 +1,6 @@
 package Model;
 
+import java.awt.Rectangle;
 import java.util.List;
 
 /**
@@ -17,7 +18,7 @@ public abstract class MovableObject extends GameObject implements Collidable{
     }
 
     /** Normal movement speed of the object. */
-    protected final double NORMAL_SPEED = 2.0;
+    protected static final double NORMAL_SPEED = 2.0;
     
     /** The gravity applied to the object. */
     protected double gravity;
@@ -34,13 +35,29 @@ public abstract class MovableObject extends GameObject implements Collidable{
     /** The direction in which the object is moving. */
     protected Direction direction;
     
-    /** Boolean flag indicating if the object is going to move to the right. */
-    protected boolean right;
+    /** Flag bit indicating if the object is going to move to the right. */
+    protected static final int RIGHT = 1 << 2;
     
-    /** Boolean flag indicating if the object is going to move to the left. */
-    protected boolean left;
-    /** Boolean flag indicating if the object is currently moving. */
-    protected boolean moving;
+    /** Flag bit indicating if the object is going to move to the left. */
+    protected static final int LEFT = 1 << 3;
+
+    /** Flag bit indicating if the object is currently moving. */
+    protected static final int MOVING = 1 << 4;
+
+    /** Number of ticks the object has to rest on a surface before falling asleep. */
+    protected static final int TICKS_BEFORE_SLEEP = 15;
+
+    /** Flag bit indicating if the object is resting, so its physics can be skipped. */
+    protected static final int SLEEPING = 1 << 5;
+
+    /** Number of consecutive ticks the object has been resting on a surface. */
+    protected int restingTicks;
+
+    /**
+     * The rectangle where the moves are tried before being applied, shared by all the objects:
+     * the physics runs on the game loop only and every move is done with it before the next one starts.
+     */
+    private static final Rectangle PROBE = new Rectangle();
 
     /**
      * Constructs a MovableObject with the specified position and size, initializing movement-related variables.
@@ -56,12 +73,90 @@ public abstract class MovableObject extends GameObject implements Collidable{
         gravity = 1.5 * NORMAL_SPEED;
         verticalSpeed = 0;
         terminalVelocity = 2.0 * NORMAL_SPEED;
-        right = false;
-        left = false;
-        moving = false;
+        restingTicks = 0;
         direction = Direction.RIGHT;
     }
 
+    /**
+     * Places the probe where the hitbox would be with the object at the given position.
+     * The probe is shared, so it is only valid until the next call by any object.
+     *
+     * @param newX the x-coordinate to try
+     * @param newY the y-coordinate to try
+     * @return the probe, to be checked and pushed out of the collisions
+     */
+    protected Rectangle probe(double newX, double newY) {
+        PROBE.setBounds(SubPixel.pixel(newX), SubPixel.pixel(newY), hitbox.width, hitbox.height);
+        return PROBE;
+    }
+
+    /**
+     * Returns the coordinate reached after trying to move to {@code wanted}: the probe was placed there
+     * and then pushed out of the collisions to {@code probed}. When the fixed-point mode is off the
+     * coordinate is the whole pixel of the probe; when it is on, the push is applied to the wanted
+     * coordinate, keeping its fraction of pixel.
+     *
+     * @param wanted the coordinate the object tried to move to
+     * @param probed the coordinate of the probe after the collisions
+     * @return the new coordinate of the object
+     */
+    protected static double settle(double wanted, int probed) {
+        if (!SubPixel.isEnabled()) return probed;
+        double q = SubPixel.quantize(wanted);
+        return q + (probed - SubPixel.pixel(q));
+    }
+
+    /**
+     * Updates the hitbox position based on the current x and y coordinates,
+     * placing it on the pixels they fall in.
+     */
+    @Override
+    public void updateHitbox() {
+        hitbox.x = SubPixel.pixel(x);
+        hitbox.y = SubPixel.pixel(y);
+    }
+
+    @Override
+    public void setX(double x) {
+        super.setX(x);
+        wakeUp();
+    }
+
+    @Override
+    public void setY(double y) {
+        super.setY(y);
+        wakeUp();
+    }
+
+    /**
+     * Checks if the object is sleeping, meaning it is resting on a surface
+     * and nothing around it has changed since.
+     *
+     * @return true if the object is sleeping, false otherwise
+     */
+    public boolean isSleeping() {
+        return hasFlag(SLEEPING);
+    }
+
+    /**
+     * Wakes up the object, so that its physics is computed again from the next tick.
+     */
+    public void wakeUp() {
+        setFlag(SLEEPING, false);
+        restingTicks = 0;
+    }
+
+    /**
+     * Records that the object has spent one more tick resting on a surface,
+     * and puts it to sleep once it has been resting long enough.
+     */
+    protected void rest() {
+        restingTicks++;
+        if (restingTicks >= TICKS_BEFORE_SLEEP) {
+            setFlag(SLEEPING, true);
+        }
+    }
+
     /**
      * Gets the current movement direction of the object.
      *
@@ -86,7 +181,7 @@ public abstract class MovableObject extends GameObject implements Collidable{
      * @param speed the new speed of the object
      */
     public void setSpeed(double speed) {
-        this.speed = speed;
+        this.speed = SubPixel.quantize(speed);
     }
 
     /**
@@ -104,7 +199,7 @@ public abstract class MovableObject extends GameObject implements Collidable{
      * @param bool true if the object should move to the right, false otherwise
      */
     public void setRight(boolean bool) {
-        this.right = bool;
+        setFlag(RIGHT, bool);
     }
 
     /**
@@ -113,7 +208,23 @@ public abstract class MovableObject extends GameObject implements Collidable{
      * @param bool true if the object should move to the left, false otherwise
      */
     public void setLeft(boolean bool) {
-        this.left = bool;
+        setFlag(LEFT, bool);
+    }
+
+    /**
+     * Puts the object back in the game at a new position, standing still and awake.
+     *
+     * @param x the new x-coordinate
+     * @param y the new y-coordinate
+     */
+    @Override
+    protected void respawn(double x, double y) {
+        super.respawn(x, y);
+        verticalSpeed = 0;
+        setFlag(RIGHT, false);
+        setFlag(LEFT, false);
+        setFlag(MOVING, false);
+        wakeUp();
     }
 
     /**
@@ -122,7 +233,53 @@ public abstract class MovableObject extends GameObject implements Collidable{
      * @return true if the object is moving, false otherwise
      */
     public boolean isMoving() {
-        return moving;
+        return hasFlag(MOVING);
+    }
+
+    /**
+     * Looks in the tile grid for a platform the object lands on while moving down to the given y-coordinate.
+     * Solid walls and one-way platforms both hold the object, but only if its feet were
+     * above the top of the tile before the move, or at most half a tile below it,
+     * since objects are slightly taller than a tile and may start sunk into the floor.
+     *
+     * @param newY the y-coordinate the object is moving down to
+     * @return the y-coordinate of the top of the platform, or -1 if the object doesn't land
+     */
+    protected double findLanding(double newY) {
+        TileGrid grid = SpatialQuery.getInstance().getGrid();
+        if (grid == null) return -1;
+        int firstCol = TileGrid.columnOf(x);
+        int lastCol = TileGrid.columnOf(x + getWidth() - 1);
+        int firstRow = (int) Math.ceil((y + getHeight() - Utility.TILE_SIZE / 2.0) / Utility.TILE_SIZE);
+        int lastRow = TileGrid.rowOf(newY + getHeight());
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                if (grid.isWalkable(col, row)) return row * Utility.TILE_SIZE;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Looks in the tile grid for a solid wall the object bumps its head on while moving up
+     * to the given y-coordinate. One-way platforms are crossed.
+     *
+     * @param newY the y-coordinate the object is moving up to
+     * @return the y-coordinate of the bottom of the wall, or -1 if nothing stops the object
+     */
+    protected double findCeiling(double newY) {
+        TileGrid grid = SpatialQuery.getInstance().getGrid();
+        if (grid == null) return -1;
+        int firstCol = TileGrid.columnOf(x);
+        int lastCol = TileGrid.columnOf(x + getWidth() - 1);
+        int firstRow = TileGrid.rowOf(y) - 1;
+        int lastRow = (int) Math.ceil(newY / Utility.TILE_SIZE) - 1;
+        for (int row = firstRow; row >= lastRow; row--) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                if (grid.isSolid(col, row)) return (row + 1) * Utility.TILE_SIZE;
+            }
+        }
+        return -1;
     }
 
     /**
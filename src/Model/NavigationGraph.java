@@ -0,0 +1,336 @@
+package Model;
+
+import java.util.Arrays;
+
+/**
+ * The NavigationGraph class describes how the platforms of a level are connected, so that
+ * the enemies can find their way to the player instead of wandering at random.
+ * The nodes of the graph are the platforms, meaning the horizontal runs of empty tiles
+ * that have a wall right below them. The links tell how to go from a platform to another:
+ * walking over a one-tile gap, falling off one of its ends or jumping straight up from one
+ * of its columns to where the {@link JumpTable} of the level says the jump lands.
+ * The graph is built once when the level is loaded, together with a table holding, for every
+ * pair of platforms, the first link of the shortest way between them, so the AI only has
+ * to look it up every tick.
+ */
+public class NavigationGraph {
+
+    /** A link followed by walking over a gap on the same row. */
+    public static final byte WALK = 0;
+
+    /** A link followed by walking off the end of a platform and falling. */
+    public static final byte FALL = 1;
+
+    /** A link followed by jumping straight up. */
+    public static final byte JUMP = 2;
+
+    /** The platform each tile belongs to, or -1 if nothing can stand on the tile. */
+    private final int[] nodeAt;
+
+    /** The row of each platform. */
+    private int[] nodeRow;
+
+    /** The first column of each platform. */
+    private int[] nodeFirstColumn;
+
+    /** The last column of each platform. */
+    private int[] nodeLastColumn;
+
+    /** The number of platforms. */
+    private int nodes;
+
+    /** The type of each link. */
+    private byte[] linkType;
+
+    /** The platform each link starts from. */
+    private int[] linkFrom;
+
+    /** The platform each link arrives to. */
+    private int[] linkTo;
+
+    /** The column where each link is taken. */
+    private int[] linkColumn;
+
+    /** The horizontal direction to keep while taking each link, -1, 0 or 1. */
+    private int[] linkDirection;
+
+    /** The number of links. */
+    private int links;
+
+    /** The first link of the shortest way between two platforms, indexed by from * nodes + to, or -1. */
+    private int[] nextHop;
+
+    /**
+     * Builds the navigation graph of a level.
+     *
+     * @param grid the tile grid of the level
+     * @param jumps the landings of the jumps of the enemies of the level
+     */
+    public NavigationGraph(TileGrid grid, JumpTable jumps) {
+        nodeAt = new int[TileGrid.COLUMNS * TileGrid.ROWS];
+        Arrays.fill(nodeAt, -1);
+        nodeRow = new int[16];
+        nodeFirstColumn = new int[16];
+        nodeLastColumn = new int[16];
+        linkType = new byte[32];
+        linkFrom = new int[32];
+        linkTo = new int[32];
+        linkColumn = new int[32];
+        linkDirection = new int[32];
+
+        findPlatforms(grid);
+        for (int node = 0; node < nodes; node++) {
+            linkEnd(grid, node, nodeFirstColumn[node], -1);
+            linkEnd(grid, node, nodeLastColumn[node], 1);
+            for (int col = nodeFirstColumn[node]; col <= nodeLastColumn[node]; col++) {
+                linkJump(jumps, node, col);
+            }
+        }
+        computeNextHops();
+    }
+
+    /**
+     * Checks if something can stand on a tile, meaning the tile is empty and the one below it is not.
+     *
+     * @param grid the tile grid
+     * @param col the column of the tile
+     * @param row the row of the tile
+     * @return true if the tile can be stood on, false otherwise
+     */
+    private static boolean canStand(TileGrid grid, int col, int row) {
+        return grid.contains(col, row) && grid.getTile(col, row) == TileGrid.EMPTY && grid.isWalkable(col, row + 1);
+    }
+
+    /**
+     * Groups the tiles that can be stood on into platforms, one per horizontal run.
+     *
+     * @param grid the tile grid
+     */
+    private void findPlatforms(TileGrid grid) {
+        for (int row = 0; row < TileGrid.ROWS; row++) {
+            int col = 0;
+            while (col < TileGrid.COLUMNS) {
+                if (!canStand(grid, col, row)) {
+                    col++;
+                    continue;
+                }
+                if (nodes == nodeRow.length) {
+                    nodeRow = Arrays.copyOf(nodeRow, nodes * 2);
+                    nodeFirstColumn = Arrays.copyOf(nodeFirstColumn, nodes * 2);
+                    nodeLastColumn = Arrays.copyOf(nodeLastColumn, nodes * 2);
+                }
+                nodeRow[nodes] = row;
+                nodeFirstColumn[nodes] = col;
+                while (col < TileGrid.COLUMNS && canStand(grid, col, row)) {
+                    nodeAt[TileGrid.index(col, row)] = nodes;
+                    col++;
+                }
+                nodeLastColumn[nodes] = col - 1;
+                nodes++;
+            }
+        }
+    }
+
+    /**
+     * Adds the link leaving a platform from one of its ends: a walk if there is another
+     * platform right after a one-tile gap, otherwise a fall to the first platform below.
+     * A fall needs the tile after the hole to be empty too, as the bodies are a little wider than a tile,
+     * and a fall through a hole in the floor goes on from the top of the screen, as the bodies do.
+     *
+     * @param grid the tile grid
+     * @param node the platform
+     * @param col the end column of the platform
+     * @param dir the side of the end, -1 for the left and 1 for the right
+     */
+    private void linkEnd(TileGrid grid, int node, int col, int dir) {
+        int row = nodeRow[node];
+        int next = col + dir;
+        if (!grid.contains(next, row) || grid.getTile(next, row) != TileGrid.EMPTY) return;
+        if (canStand(grid, next + dir, row)) {
+            addLink(WALK, node, nodeAt[TileGrid.index(next + dir, row)], col, dir);
+            return;
+        }
+        if (grid.getTile(next + dir, row) != TileGrid.EMPTY) return;
+        for (int step = 1; step < TileGrid.ROWS; step++) {
+            int below = (row + step) % TileGrid.ROWS;
+            if (grid.isWalkable(next, below)) {
+                if (canStand(grid, next, below - 1)) {
+                    addLink(FALL, node, nodeAt[TileGrid.index(next, below - 1)], col, dir);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Adds the link of the jump taken from a column of a platform, if it lands on another platform.
+     *
+     * @param jumps the landings of the jumps
+     * @param node the platform
+     * @param col the column of the jump
+     */
+    private void linkJump(JumpTable jumps, int node, int col) {
+        int landing = jumps.getLanding(col, nodeRow[node]);
+        if (landing < 0) return;
+        int target = nodeAt[TileGrid.index(col, landing)];
+        if (target >= 0 && !hasLink(node, target)) addLink(JUMP, node, target, col, 0);
+    }
+
+    /**
+     * Checks if two platforms are already linked.
+     *
+     * @param from the starting platform
+     * @param to the arrival platform
+     * @return true if a link between them exists, false otherwise
+     */
+    private boolean hasLink(int from, int to) {
+        for (int l = 0; l < links; l++) {
+            if (linkFrom[l] == from && linkTo[l] == to) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds a link to the graph.
+     *
+     * @param type the type of the link
+     * @param from the starting platform
+     * @param to the arrival platform
+     * @param col the column where the link is taken
+     * @param dir the horizontal direction to keep while taking the link
+     */
+    private void addLink(byte type, int from, int to, int col, int dir) {
+        if (from == to) return;
+        if (links == linkType.length) {
+            linkType = Arrays.copyOf(linkType, links * 2);
+            linkFrom = Arrays.copyOf(linkFrom, links * 2);
+            linkTo = Arrays.copyOf(linkTo, links * 2);
+            linkColumn = Arrays.copyOf(linkColumn, links * 2);
+            linkDirection = Arrays.copyOf(linkDirection, links * 2);
+        }
+        linkType[links] = type;
+        linkFrom[links] = from;
+        linkTo[links] = to;
+        linkColumn[links] = col;
+        linkDirection[links] = dir;
+        links++;
+    }
+
+    /**
+     * Fills the next hop table with a breadth-first search from every platform,
+     * remembering for each platform reached the link the search left the start with.
+     */
+    private void computeNextHops() {
+        nextHop = new int[nodes * nodes];
+        Arrays.fill(nextHop, -1);
+        int[] queue = new int[nodes];
+        for (int start = 0; start < nodes; start++) {
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = start;
+            while (head < tail) {
+                int node = queue[head++];
+                for (int l = 0; l < links; l++) {
+                    if (linkFrom[l] != node) continue;
+                    int to = linkTo[l];
+                    if (to == start || nextHop[start * nodes + to] >= 0) continue;
+                    nextHop[start * nodes + to] = node == start ? l : nextHop[start * nodes + node];
+                    queue[tail++] = to;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the platform under a body: the first platform found going down from the row
+     * of its feet, looking at the column of its centre first and then at the columns of its
+     * sides, so a body still standing on the edge of a platform is found on it.
+     *
+     * @param obj the body
+     * @return the platform, or -1 if there is none
+     */
+    public int nodeUnder(GameObject obj) {
+        int centre = TileGrid.columnOf(obj.getX() + obj.getWidth() / 2);
+        int left = TileGrid.columnOf(obj.getX());
+        int right = TileGrid.columnOf(obj.getX() + obj.getWidth() - 1);
+        for (int row = Math.max(0, TileGrid.rowOf(obj.getY() + obj.getHeight() - 1)); row < TileGrid.ROWS; row++) {
+            int node = nodeAt(centre, row);
+            if (node < 0) node = nodeAt(left, row);
+            if (node < 0) node = nodeAt(right, row);
+            if (node >= 0) return node;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the platform a tile belongs to.
+     *
+     * @param col the column of the tile
+     * @param row the row of the tile
+     * @return the platform, or -1 if nothing can stand on the tile
+     */
+    public int nodeAt(int col, int row) {
+        if (col < 0 || col >= TileGrid.COLUMNS || row < 0 || row >= TileGrid.ROWS) return -1;
+        return nodeAt[TileGrid.index(col, row)];
+    }
+
+    /**
+     * Returns the first link to take to go from a platform to another.
+     *
+     * @param from the starting platform
+     * @param to the arrival platform
+     * @return the link, or -1 if the platforms are the same or not connected
+     */
+    public int nextLink(int from, int to) {
+        if (from < 0 || to < 0) return -1;
+        return nextHop[from * nodes + to];
+    }
+
+    /**
+     * Returns the number of platforms of the level.
+     *
+     * @return the number of platforms
+     */
+    public int getNodeCount() {
+        return nodes;
+    }
+
+    /**
+     * Returns the number of links between the platforms.
+     *
+     * @return the number of links
+     */
+    public int getLinkCount() {
+        return links;
+    }
+
+    /**
+     * Returns the type of a link, one of {@link #WALK}, {@link #FALL} and {@link #JUMP}.
+     *
+     * @param link the link
+     * @return the type of the link
+     */
+    public byte getLinkType(int link) {
+        return linkType[link];
+    }
+
+    /**
+     * Returns the column where a link is taken.
+     *
+     * @param link the link
+     * @return the column of the link
+     */
+    public int getLinkColumn(int link) {
+        return linkColumn[link];
+    }
+
+    /**
+     * Returns the horizontal direction to keep while taking a link.
+     *
+     * @param link the link
+     * @return -1 for the left, 1 for the right, 0 for a jump straight up
+     */
+    public int getLinkDirection(int link) {
+        return linkDirection[link];
+    }
+}
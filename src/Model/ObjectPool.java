@@ -0,0 +1,95 @@
+package Model;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * The ObjectPool class keeps the objects of one type that are not in use, so that they can
+ * be reset and used again instead of being created every time and left to the garbage collector.
+ * It is used for the objects that appear and disappear all the time during a level:
+ * bubbles and power-ups.
+ *
+ * @param <T> the type of the pooled objects
+ */
+public class ObjectPool<T extends GameObject> {
+
+    /** Creates a new object when the pool is empty. */
+    private final Supplier<T> factory;
+
+    /** The objects not in use, only the first {@code size} entries are valid. */
+    private GameObject[] free;
+
+    /** The number of objects not in use. */
+    private int size;
+
+    /** The number of objects created by the pool. */
+    private int created;
+
+    /**
+     * Constructs an empty pool.
+     *
+     * @param factory creates a new object when the pool is empty
+     */
+    public ObjectPool(Supplier<T> factory) {
+        this.factory = factory;
+        free = new GameObject[16];
+    }
+
+    /**
+     * Takes an object from the pool, creating it if none is left.
+     * The object has to be reset by the caller before being used.
+     *
+     * @return an object not in use
+     */
+    @SuppressWarnings("unchecked")
+    public T obtain() {
+        if (size == 0) {
+            created++;
+            return factory.get();
+        }
+        T obj = (T) free[--size];
+        free[size] = null;
+        return obj;
+    }
+
+    /**
+     * Gives an object back to the pool once it is no longer in use.
+     *
+     * @param obj the object to give back
+     */
+    public void release(T obj) {
+        if (size == free.length) free = Arrays.copyOf(free, size * 2);
+        free[size++] = obj;
+    }
+
+    /**
+     * Creates objects until the pool holds at least the given number of them,
+     * so that a level can start without creating any more.
+     *
+     * @param count the number of objects the pool must hold
+     */
+    public void prefill(int count) {
+        while (size < count) {
+            created++;
+            release(factory.get());
+        }
+    }
+
+    /**
+     * Returns the number of objects not in use.
+     *
+     * @return the number of objects in the pool
+     */
+    public int available() {
+        return size;
+    }
+
+    /**
+     * Returns the number of objects the pool has created since it was constructed.
+     *
+     * @return the number of objects created
+     */
+    public int getCreated() {
+        return created;
+    }
+}
@@ -12,7 +12,7 @@ import java.util.List;
 public class Player extends Entity {
 
     private int lives; // Number of lives the player has
-    private List<PlayerObserver> pObv; // List of player observers
+    private List<PlayerObserver> pObv; // List of player observers, created when the first one is added
     private boolean isInvincible; // Flag to prevent multiple hits
     private int invincibilityTimer; // Timer for invincibility in frames
 
@@ -23,9 +23,8 @@ public class Player extends Entity {
      */
     public Player() {
         super(20, Utility.HEIGHT - 40, 24, 24);
-        canAttack = true;
+        setFlag(CAN_ATTACK, true);
         lives = 2; // Initial lives
-        pObv = new ArrayList<PlayerObserver>();
         isInvincible = false;
         invincibilityTimer = 0; // Initial state is not invincible
     }
@@ -65,6 +64,7 @@ public class Player extends Entity {
      * @param obv the observer to add
      */
     public void addPlayerObserver(PlayerObserver obv) {
+        if (pObv == null) pObv = new ArrayList<PlayerObserver>(1);
         pObv.add(obv);
     }
 
@@ -72,6 +72,7 @@ public class Player extends Entity {
      * Notifies all observers that the player's lives have decreased.
      */
     private void notifyLivesChange() {
+        if (pObv == null) return;
         for (PlayerObserver observer : pObv) {
             observer.onLivesChange();
         }
@@ -113,9 +114,15 @@ public class Player extends Entity {
         }
     }
 
+    /**
+     * The player has no response of its own: the contact buffer resolves both sides
+     * of every contact, so the other object reacts to the player by itself.
+     *
+     * @param obj the other object the player collides with
+     */
     @Override
     public void collision(Collidable obj) {
-    		obj.collision(this);
+        // Handled by the other object of the pair
     }
 
     @Override
@@ -16,6 +16,7 @@ public class PowerUp extends Entity {
 
     private int points; // Points awarded when this power-up is collected
     private Type type;  // Type of the power-up
+    private int tile = -1; // Free tile taken by the power-up while it is in the level, or -1
 
     private PowerUp(double x, double y, int points, Type type) {
         super(x, y, 20, 20);
@@ -23,6 +24,21 @@ public class PowerUp extends Entity {
         this.type = type;
     }
 
+    /**
+     * Resets a power-up taken from the pool, as if it was just created.
+     *
+     * @param x the x-coordinate of the power-up
+     * @param y the y-coordinate of the power-up
+     * @param points the points awarded when it is collected
+     * @param type the type of the power-up
+     */
+    private void reset(double x, double y, int points, Type type) {
+        respawn(x, y);
+        this.points = points;
+        this.type = type;
+        this.tile = -1;
+    }
+
     public int getPoints() {
         return points;
     }
@@ -31,33 +47,75 @@ public class PowerUp extends Entity {
         return type;
     }
 
+    /**
+     * Returns the free tile the power-up was spawned on, taken out of the
+     * {@link FreeTileIndex} of the level until the power-up leaves it.
+     *
+     * @return the index of the tile, or -1 if the power-up took no tile
+     */
+    public int getTile() {
+        return tile;
+    }
+
+    /**
+     * Sets the free tile the power-up was spawned on.
+     *
+     * @param tile the index of the tile, or -1 if the power-up took no tile
+     */
+    public void setTile(int tile) {
+        this.tile = tile;
+    }
+
+    /**
+     * Returns the pixel mask of the power-up, registered for its type.
+     *
+     * @return the collision mask, or null if the whole hitbox is solid
+     */
+    @Override
+    public CollisionMask getCollisionMask() {
+        return CollisionMask.get(type);
+    }
+
+    /**
+     * Makes the power-up fall until it lands on something. Once it has been lying
+     * on a platform for a while it falls asleep and the check is skipped until
+     * something near it wakes it up.
+     *
+     * @param others a list of other GameObjects for collision detection
+     */
+    @Override
     public void applyGravity(List<GameObject> others) {
-        falling = true;
+        if (hasFlag(SLEEPING)) return;
+        setFlag(FALLING, true);
         verticalSpeed += gravity;
         if (verticalSpeed > terminalVelocity) {
             verticalSpeed = terminalVelocity;
         }
 
-        Rectangle newHitbox = new Rectangle((int) x, (int) (y + verticalSpeed), (int) getWidth(), (int) getHeight());
+        // Walls and platforms are looked up in the tile grid, the other objects one by one
+        double landing = findLanding(y + verticalSpeed);
         CollisionDetection detection = new CollisionDetection(false, null, null);
-
-        for (GameObject obj : others) {
-            detection = CollisionDetection.collisionDetection(this, newHitbox, obj);
-            if (detection.isCollisionDetected() && detection.getDirection() == CollisionDetection.CollisionDirection.BOTTOM) {
-                if (verticalSpeed > 0) {
-                    y = obj.getY() - getHeight();
-                } else {
-                    y = obj.getY() + obj.getHeight();
+        if (landing < 0) {
+            Rectangle newHitbox = probe(x, y + verticalSpeed);
+            for (GameObject obj : others) {
+                if (obj == this || obj instanceof Wall) continue;
+                detection = CollisionDetection.collisionDetection(this, newHitbox, obj);
+                if (detection.isCollisionDetected() && detection.getTranslationY() < 0) {
+                    landing = obj.getY();
+                    break;
                 }
-                verticalSpeed = 0;
-                jump = false;
-                falling = false;
-                break;
             }
         }
 
-        if (!detection.isCollisionDetected()) {
+        if (landing >= 0) {
+            y = landing - getHeight();
+            verticalSpeed = 0;
+            setFlag(JUMP, false);
+            setFlag(FALLING, false);
+            rest();
+        } else if (!detection.isCollisionDetected()) {
             y += verticalSpeed;
+            restingTicks = 0;
         }
 
         if (this.y >= Utility.HEIGHT) y = 0;
@@ -67,6 +125,8 @@ public class PowerUp extends Entity {
 
     @Override
     public void collision(Collidable obj) {
+        // A power-up is collected only once, even if it is touched again before it leaves the level
+        if (isToDestroy()) return;
         if (obj instanceof Player) {
             Player p = (Player) obj;
             if (type == Type.CAKE || type == Type.GRAPE || type == Type.CARROT || type == Type.TURNIP) {
@@ -78,30 +138,36 @@ public class PowerUp extends Entity {
 
     /**
      * Factory class for creating instances of {@code PowerUp}.
+     * The power-ups are taken from a pool and given back to it once collected,
+     * so a level doesn't create a new one for every enemy defeated.
      */
     public static class PowerUpFactory {
+
+        /** The power-ups not in use. */
+        private static final ObjectPool<PowerUp> POOL = new ObjectPool<>(() -> new PowerUp(0, 0, 0, Type.MUSHROOM));
+
         public static PowerUp createPowerUp(double x, double y, Type type) {
             switch (type) {
                 case MUSHROOM:
-                    return new PowerUp(x, y, 100, type);
+                    return obtain(x, y, 100, type);
                 case CHERRY:
-                    return new PowerUp(x, y, 700, type);
+                    return obtain(x, y, 700, type);
                 case GREEN_PEPPER:
-                    return new PowerUp(x, y, 10, type);
+                    return obtain(x, y, 10, type);
                 case GRAPE:
-                    return new PowerUp(x, y, 4000, type);
+                    return obtain(x, y, 4000, type);
                 case CARROT:
-                    return new PowerUp(x, y, 30, type);
+                    return obtain(x, y, 30, type);
                 case ICE_CREAM:
-                    return new PowerUp(x, y, 950, type);
+                    return obtain(x, y, 950, type);
                 case WATERMELON:
-                    return new PowerUp(x, y, 600, type);
+                    return obtain(x, y, 600, type);
                 case TURNIP:
-                    return new PowerUp(x, y, 60, type);
+                    return obtain(x, y, 60, type);
                 case HAMBURGER:
-                    return new PowerUp(x, y, 2000, type);
+                    return obtain(x, y, 2000, type);
                 case CAKE:
-                    return new PowerUp(x, y, 2000, type);
+                    return obtain(x, y, 2000, type);
                 default:
                     throw new IllegalArgumentException("Invalid power-up type: " + type);
             }
@@ -112,5 +178,32 @@ public class PowerUp extends Entity {
             Type[] types = Type.values();
             return createPowerUp(x, y, types[random.nextInt(types.length)]);
         }
+
+        /**
+         * Takes a power-up from the pool and resets it.
+         */
+        private static PowerUp obtain(double x, double y, int points, Type type) {
+            PowerUp p = POOL.obtain();
+            p.reset(x, y, points, type);
+            return p;
+        }
+
+        /**
+         * Gives a power-up back to the pool once it has been collected or left behind.
+         *
+         * @param p the power-up
+         */
+        public static void release(PowerUp p) {
+            POOL.release(p);
+        }
+
+        /**
+         * Returns the pool of the power-ups, to pre-size it for a level.
+         *
+         * @return the pool
+         */
+        public static ObjectPool<PowerUp> getPool() {
+            return POOL;
+        }
     }
 }
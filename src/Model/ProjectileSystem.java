@@ -0,0 +1,328 @@
+package Model;
+
+import java.awt.Rectangle;
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The ProjectileSystem class moves all the shots of a level: the boulders of the Mightas
+ * and any other pattern written in the data file, like the rings of fire and the spreads
+ * of bubbles of a boss.
+ * Shots are not game objects: each one is a position, a velocity, a lifetime and a pattern
+ * kept at the same index of plain arrays. The live shots are always the first {@link #getCount()}
+ * entries, a shot that ends is replaced by the last one, and the arrays only grow when more
+ * shots than ever fly at once, so firing allocates nothing.
+ * Shots only meet the walls, looked up in the tile grid, and the player: thousands of them
+ * cost a few array reads each per tick.
+ */
+public class ProjectileSystem {
+
+    /** The file the patterns are read from. */
+    private static final String FILE = "./res/Behaviour/Projectiles.txt";
+
+    /** The patterns, in the order they are read. */
+    private static List<Pattern> patterns;
+
+    /** The position of each pattern in the list, by name. */
+    private static Map<String, Integer> byName;
+
+    /** Half the size of the hit box of each pattern, read at every test. */
+    private static int[] hitHalves;
+
+    /** The centre of each shot. */
+    private double[] x;
+    private double[] y;
+
+    /** The velocity of each shot, in pixels per tick. */
+    private double[] vx;
+    private double[] vy;
+
+    /** The ticks left to each shot, or a negative number if it flies until it hits something. */
+    private int[] ttl;
+
+    /** The pattern of each shot. */
+    private int[] pattern;
+
+    /** The number of live shots. */
+    private int count;
+
+    /** The box the shots are tested with, reused for every test. */
+    private final Rectangle box;
+
+    /**
+     * Constructs an empty ProjectileSystem.
+     */
+    public ProjectileSystem() {
+        if (patterns == null) load(FILE);
+        x = new double[64];
+        y = new double[64];
+        vx = new double[64];
+        vy = new double[64];
+        ttl = new int[64];
+        pattern = new int[64];
+        box = new Rectangle();
+    }
+
+    /**
+     * Fires a pattern from a point, toward the side an object is facing.
+     *
+     * @param name the name of the pattern
+     * @param cx the x-coordinate of the point
+     * @param cy the y-coordinate of the point
+     * @param direction the side to fire toward
+     */
+    public void fire(String name, double cx, double cy, MovableObject.Direction direction) {
+        fire(name, cx, cy, direction == MovableObject.Direction.LEFT ? 180 : 0);
+    }
+
+    /**
+     * Fires a pattern from a point toward an angle.
+     *
+     * @param name the name of the pattern
+     * @param cx the x-coordinate of the point
+     * @param cy the y-coordinate of the point
+     * @param angle the angle in degrees, 0 is right and 90 is down
+     * @throws IllegalArgumentException if there is no pattern with that name
+     */
+    public void fire(String name, double cx, double cy, double angle) {
+        Integer id = byName.get(name);
+        if (id == null) throw new IllegalArgumentException("Unknown projectile pattern: " + name);
+        Pattern p = patterns.get(id);
+        for (int i = 0; i < p.shots; i++) {
+            double a = angle;
+            if (p.spread >= 360) a += 360.0 * i / p.shots;
+            else if (p.shots > 1) a += p.spread * ((double) i / (p.shots - 1) - 0.5);
+            double rad = Math.toRadians(a);
+            add(cx, cy, SubPixel.quantize(Math.cos(rad) * p.speed), SubPixel.quantize(Math.sin(rad) * p.speed),
+                    p.lifetime > 0 ? p.lifetime : -1, id);
+        }
+    }
+
+    /**
+     * Adds a shot at the end of the live ones, growing the arrays if they are full.
+     */
+    private void add(double cx, double cy, double dx, double dy, int ticks, int id) {
+        if (count == x.length) {
+            int capacity = count * 2;
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            vx = Arrays.copyOf(vx, capacity);
+            vy = Arrays.copyOf(vy, capacity);
+            ttl = Arrays.copyOf(ttl, capacity);
+            pattern = Arrays.copyOf(pattern, capacity);
+        }
+        x[count] = SubPixel.quantize(cx);
+        y[count] = SubPixel.quantize(cy);
+        vx[count] = dx;
+        vy[count] = dy;
+        ttl[count] = ticks;
+        pattern[count] = id;
+        count++;
+    }
+
+    /**
+     * Moves every shot one tick. A shot ends when its lifetime is over, when it leaves the screen,
+     * when it enters a wall or a platform and when it hits the player, who is hurt by it.
+     *
+     * @param player the player
+     */
+    public void update(Player player) {
+        TileGrid grid = SpatialQuery.getInstance().getGrid();
+        Rectangle target = player.getHitbox();
+        int i = 0;
+        while (i < count) {
+            x[i] += vx[i];
+            y[i] += vy[i];
+            if (ttl[i] > 0) ttl[i]--;
+            int half = hitHalves[pattern[i]];
+            box.setBounds(SubPixel.pixel(x[i]) - half, SubPixel.pixel(y[i]) - half, half * 2, half * 2);
+            boolean ends = ttl[i] == 0 || !onScreen(box) || (grid != null && hitsWall(grid, box));
+            if (!ends && box.intersects(target)) {
+                player.isHit();
+                ends = true;
+            }
+            // The last shot takes the place of the one ending and is moved in the same pass
+            if (ends) remove(i);
+            else i++;
+        }
+    }
+
+    /**
+     * Checks if a box is still, even partly, on the screen.
+     */
+    private static boolean onScreen(Rectangle r) {
+        return r.x + r.width > 0 && r.x < Utility.WIDTH && r.y + r.height > 0 && r.y < Utility.HEIGHT;
+    }
+
+    /**
+     * Checks if a box overlaps a wall or a platform of the tile grid.
+     */
+    private static boolean hitsWall(TileGrid grid, Rectangle r) {
+        int firstCol = Math.floorDiv(r.x, Utility.TILE_SIZE);
+        int lastCol = Math.floorDiv(r.x + r.width - 1, Utility.TILE_SIZE);
+        int lastRow = Math.floorDiv(r.y + r.height - 1, Utility.TILE_SIZE);
+        for (int row = Math.floorDiv(r.y, Utility.TILE_SIZE); row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                if (grid.isWalkable(col, row)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Ends a shot, moving the last live shot into its place.
+     */
+    private void remove(int i) {
+        int last = --count;
+        x[i] = x[last];
+        y[i] = y[last];
+        vx[i] = vx[last];
+        vy[i] = vy[last];
+        ttl[i] = ttl[last];
+        pattern[i] = pattern[last];
+    }
+
+    /**
+     * Ends all the shots, for example when the level changes.
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * Returns the number of live shots, the first entries of the arrays.
+     *
+     * @return the number of shots
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the x-coordinate of the top left corner a shot is drawn from.
+     *
+     * @param i the index of the shot
+     * @return the x-coordinate
+     */
+    public double getX(int i) {
+        return x[i] - patterns.get(pattern[i]).size / 2.0;
+    }
+
+    /**
+     * Returns the y-coordinate of the top left corner a shot is drawn from.
+     *
+     * @param i the index of the shot
+     * @return the y-coordinate
+     */
+    public double getY(int i) {
+        return y[i] - patterns.get(pattern[i]).size / 2.0;
+    }
+
+    /**
+     * Returns the size a shot is drawn with.
+     *
+     * @param i the index of the shot
+     * @return the size in pixels
+     */
+    public int getSize(int i) {
+        return patterns.get(pattern[i]).size;
+    }
+
+    /**
+     * Returns the name of the image a shot is drawn with.
+     *
+     * @param i the index of the shot
+     * @return the name of the sprite, as written in the data file
+     */
+    public String getSprite(int i) {
+        return patterns.get(pattern[i]).sprite;
+    }
+
+    /**
+     * Reads the patterns from a file.
+     *
+     * @param filename the file to read
+     * @throws IllegalStateException if the file can't be read
+     * @throws IllegalArgumentException if a line of the file is not valid or a pattern is incomplete
+     */
+    private static void load(String filename) {
+        List<Pattern> read = new ArrayList<>();
+        Map<String, Integer> names = new HashMap<>();
+        Pattern current = null;
+        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                if (line.startsWith("[") && line.endsWith("]")) {
+                    current = new Pattern(line.substring(1, line.length() - 1).trim());
+                    names.put(current.name, read.size());
+                    read.add(current);
+                } else if (current == null) {
+                    throw new IllegalArgumentException("Line outside of a pattern: " + line);
+                } else {
+                    current.set(line.split("\\s+"));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read the projectile patterns from " + filename, e);
+        }
+        for (Pattern p : read) {
+            if (p.sprite == null || p.size == 0 || p.shots == 0 || p.speed == 0) {
+                throw new IllegalArgumentException("Incomplete projectile pattern: " + p.name);
+            }
+        }
+        hitHalves = new int[read.size()];
+        for (int i = 0; i < hitHalves.length; i++) hitHalves[i] = read.get(i).hitSize / 2;
+        patterns = read;
+        byName = names;
+    }
+
+    /**
+     * A pattern of shots, as read from the data file.
+     */
+    private static final class Pattern {
+
+        private final String name;
+        private String sprite;
+        private int size;
+        private int hitSize;
+        private int shots;
+        private double spread;
+        private double speed;
+        private int lifetime;
+
+        private Pattern(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Applies a line of the data file, split in words, to the pattern.
+         *
+         * @throws IllegalArgumentException if the line is not valid
+         */
+        private void set(String[] words) {
+            if (words[0].equals("SPRITE") && words.length == 2) {
+                sprite = words[1];
+            } else if (words[0].equals("SIZE") && words.length == 3) {
+                size = Integer.parseInt(words[1]);
+                hitSize = Integer.parseInt(words[2]);
+            } else if (words[0].equals("SHOTS") && words.length == 3) {
+                shots = Integer.parseInt(words[1]);
+                spread = Double.parseDouble(words[2]);
+            } else if (words[0].equals("SPEED") && words.length == 2) {
+                speed = MovableObject.NORMAL_SPEED * Double.parseDouble(words[1]);
+            } else if (words[0].equals("LIFETIME") && words.length == 2) {
+                lifetime = Integer.parseInt(words[1]);
+            } else {
+                throw new IllegalArgumentException("Invalid projectile line in " + name + ": " + String.join(" ", words));
+            }
+        }
+    }
+}
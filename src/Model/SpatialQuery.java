@@ -0,0 +1,265 @@
+package Model;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The SpatialQuery class answers the spatial questions of the AI and of the weapons:
+ * raycasts over the wall grid of the level and queries of the dynamic objects inside
+ * an area. The results are written in buffers that are reused from call to call,
+ * so the queries don't allocate.
+ * It follows the Singleton pattern and it is pointed to the current level by the controller.
+ */
+public class SpatialQuery {
+
+    /** Singleton instance of the SpatialQuery. */
+    private static SpatialQuery instance;
+
+    /** The tile grid of the current level. */
+    private TileGrid grid;
+
+    /** Where the jumps land in the current level. */
+    private JumpTable jumps;
+
+    /** The navigation graph of the current level. */
+    private NavigationGraph navigation;
+
+    /** The air currents of the current level, the ones of a level without arrows until a level is set. */
+    private AirCurrents currents;
+
+    /** The distance field toward the player of the current level. */
+    private DistanceField distanceField;
+
+    /** The broadphase holding the dynamic objects of the current level. */
+    private Broadphase broadphase;
+
+    /** The buffer returned by the region queries. */
+    private final List<GameObject> region;
+
+    /** The candidates of the region queries, tested in batch. */
+    private final AabbBatch batch;
+
+    /** The positions of the candidates hit by the region queries. */
+    private int[] hits;
+
+    /**
+     * Private constructor to enforce the Singleton pattern.
+     */
+    private SpatialQuery() {
+        currents = new AirCurrents();
+        region = new ArrayList<>();
+        batch = new AabbBatch();
+        hits = new int[0];
+    }
+
+    /**
+     * Returns the singleton instance of the SpatialQuery.
+     *
+     * @return the single instance of SpatialQuery
+     */
+    public static SpatialQuery getInstance() {
+        if (instance == null) instance = new SpatialQuery();
+        return instance;
+    }
+
+    /**
+     * Sets the level the queries are answered on.
+     *
+     * @param level the level, holding its tile grid, jump table, navigation graph, distance field and air currents
+     * @param broadphase the broadphase holding the dynamic objects of the level
+     */
+    public void setLevel(LevelComponent level, Broadphase broadphase) {
+        this.grid = level.getGrid();
+        this.jumps = level.getJumps();
+        this.navigation = level.getNavigation();
+        this.currents = level.getCurrents();
+        this.distanceField = level.getDistanceField();
+        this.broadphase = broadphase;
+    }
+
+    /**
+     * Returns the tile grid of the current level.
+     *
+     * @return the tile grid
+     */
+    public TileGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Returns where the jumps land in the current level, so the AI can tell
+     * which platforms are in reach without simulating the jumps.
+     *
+     * @return the jump table
+     */
+    public JumpTable getJumps() {
+        return jumps;
+    }
+
+    /**
+     * Returns the navigation graph of the current level.
+     *
+     * @return the navigation graph
+     */
+    public NavigationGraph getNavigation() {
+        return navigation;
+    }
+
+    /**
+     * Returns the air currents carrying the floating bubbles of the current level.
+     *
+     * @return the air currents
+     */
+    public AirCurrents getCurrents() {
+        return currents;
+    }
+
+    /**
+     * Returns the distance field toward the player of the current level.
+     *
+     * @return the distance field
+     */
+    public DistanceField getDistanceField() {
+        return distanceField;
+    }
+
+    /**
+     * Casts a ray between two points and walks the tiles it crosses with a DDA,
+     * stopping at the first wall, either solid or one-way.
+     *
+     * @param x0 the x-coordinate of the starting point
+     * @param y0 the y-coordinate of the starting point
+     * @param x1 the x-coordinate of the end point
+     * @param y1 the y-coordinate of the end point
+     * @param hit where the blocking tile is written if the ray is blocked, can be null
+     * @return true if a wall blocks the ray, false if the end point is reached
+     */
+    public boolean raycast(double x0, double y0, double x1, double y1, RayHit hit) {
+        if (grid == null) return false;
+        int col = TileGrid.columnOf(x0);
+        int row = TileGrid.rowOf(y0);
+        int endCol = TileGrid.columnOf(x1);
+        int endRow = TileGrid.rowOf(y1);
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        int stepCol = (int) Math.signum(dx);
+        int stepRow = (int) Math.signum(dy);
+
+        // Distance along the ray, as a fraction of its length, to the next vertical and horizontal tile border
+        double deltaX = dx == 0 ? Double.POSITIVE_INFINITY : Utility.TILE_SIZE / Math.abs(dx);
+        double deltaY = dy == 0 ? Double.POSITIVE_INFINITY : Utility.TILE_SIZE / Math.abs(dy);
+        double nextX = dx == 0 ? Double.POSITIVE_INFINITY
+                : ((stepCol > 0 ? (col + 1) * Utility.TILE_SIZE - x0 : x0 - col * Utility.TILE_SIZE) / Math.abs(dx));
+        double nextY = dy == 0 ? Double.POSITIVE_INFINITY
+                : ((stepRow > 0 ? (row + 1) * Utility.TILE_SIZE - y0 : y0 - row * Utility.TILE_SIZE) / Math.abs(dy));
+
+        double t = 0;
+        int steps = TileGrid.COLUMNS + TileGrid.ROWS;
+        while (steps-- >= 0) {
+            if (grid.isWalkable(col, row)) {
+                if (hit != null) hit.set(col, row, x0 + dx * t, y0 + dy * t);
+                return true;
+            }
+            if (col == endCol && row == endRow) break;
+            if (nextX < nextY) {
+                t = nextX;
+                nextX += deltaX;
+                col += stepCol;
+            } else {
+                t = nextY;
+                nextY += deltaY;
+                row += stepRow;
+            }
+            if (t > 1) break;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if there are no walls between the centres of two objects.
+     *
+     * @param from the object looking
+     * @param to the object looked at
+     * @return true if the line between the two centres crosses no wall, false otherwise
+     */
+    public boolean hasLineOfSight(GameObject from, GameObject to) {
+        return !raycast(from.getX() + from.getWidth() / 2, from.getY() + from.getHeight() / 2,
+                to.getX() + to.getWidth() / 2, to.getY() + to.getHeight() / 2, null);
+    }
+
+    /**
+     * Collects the dynamic objects whose hitbox intersects the given area.
+     * The returned list is reused by the next call, so it must be consumed right away.
+     *
+     * @param area the area to search
+     * @return the objects found
+     */
+    public List<GameObject> queryRegion(Rectangle area) {
+        region.clear();
+        if (broadphase == null) return region;
+        batch.clear();
+        broadphase.candidates(area, batch);
+        if (hits.length < batch.size()) hits = new int[batch.size() * 2];
+        int count = batch.intersect(area, hits);
+        for (int i = 0; i < count; i++) {
+            region.add(batch.get(hits[i]));
+        }
+        return region;
+    }
+
+    /**
+     * The RayHit class holds where a ray was blocked. It is meant to be kept
+     * and reused by whoever casts the rays.
+     */
+    public static class RayHit {
+
+        private int column;
+        private int row;
+        private double x;
+        private double y;
+
+        private void set(int column, int row, double x, double y) {
+            this.column = column;
+            this.row = row;
+            this.x = x;
+            this.y = y;
+        }
+
+        /**
+         * Returns the column of the blocking tile.
+         *
+         * @return the column
+         */
+        public int getColumn() {
+            return column;
+        }
+
+        /**
+         * Returns the row of the blocking tile.
+         *
+         * @return the row
+         */
+        public int getRow() {
+            return row;
+        }
+
+        /**
+         * Returns the x-coordinate where the ray entered the blocking tile.
+         *
+         * @return the x-coordinate of the hit
+         */
+        public double getX() {
+            return x;
+        }
+
+        /**
+         * Returns the y-coordinate where the ray entered the blocking tile.
+         *
+         * @return the y-coordinate of the hit
+         */
+        public double getY() {
+            return y;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package Model;
+
+/**
+ * The SubPixel class holds the fixed-point physics mode. When the mode is on, positions and
+ * speeds of the moving objects are kept on a grid of 1/{@link #ONE} of a pixel, and the hitboxes
+ * are the pixels those positions fall in. Values on that grid are added and subtracted exactly,
+ * so the same inputs always give the same positions on every JVM, and the fractions of pixel
+ * are kept from a tick to the next instead of being truncated away by the hitboxes.
+ * When the mode is off the physics works as it always did: every move is truncated to whole pixels.
+ * The mode has to be chosen before the game starts.
+ */
+public final class SubPixel {
+
+    /** The number of bits of a coordinate used for the fraction of pixel. */
+    public static final int SHIFT = 8;
+
+    /** The number of subpixels in a pixel. */
+    public static final int ONE = 1 << SHIFT;
+
+    /** Whether the fixed-point mode is on. */
+    private static boolean enabled = false;
+
+    /**
+     * Private constructor, the class only has static members.
+     */
+    private SubPixel() {
+    }
+
+    /**
+     * Checks if the fixed-point mode is on.
+     *
+     * @return true if the physics works in subpixels, false otherwise
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns the fixed-point mode on or off.
+     *
+     * @param on true to work in subpixels, false to truncate to whole pixels
+     */
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /**
+     * Converts pixels to subpixels, rounding to the nearest one.
+     *
+     * @param pixels the value in pixels
+     * @return the value in subpixels
+     */
+    public static int fromPixels(double pixels) {
+        return (int) Math.round(pixels * ONE);
+    }
+
+    /**
+     * Converts subpixels to pixels.
+     *
+     * @param sub the value in subpixels
+     * @return the value in pixels
+     */
+    public static double toPixels(int sub) {
+        return sub / (double) ONE;
+    }
+
+    /**
+     * Puts a position or a speed on the subpixel grid when the mode is on.
+     *
+     * @param value the value in pixels
+     * @return the nearest value on the subpixel grid, or the value itself when the mode is off
+     */
+    public static double quantize(double value) {
+        return enabled ? toPixels(fromPixels(value)) : value;
+    }
+
+    /**
+     * Returns the pixel a coordinate falls in, the one its hitbox is placed at.
+     *
+     * @param value the coordinate
+     * @return the pixel containing the subpixel position when the mode is on, the truncated coordinate otherwise
+     */
+    public static int pixel(double value) {
+        return enabled ? fromPixels(value) >> SHIFT : (int) value;
+    }
+}
@@ -0,0 +1,130 @@
+package Model;
+
+import java.util.List;
+
+/**
+ * The TileGrid class describes the static layout of a level as a grid of tiles,
+ * one byte per tile, so that what lies at a position can be looked up directly
+ * instead of scanning the list of walls.
+ */
+public class TileGrid {
+
+    /** An empty tile. */
+    public static final byte EMPTY = 0;
+
+    /** A tile occupied by a solid wall. */
+    public static final byte SOLID = 1;
+
+    /** A tile occupied by a one-way platform, solid only for what lands on it from above. */
+    public static final byte ONE_WAY = 2;
+
+    /** The number of columns of the grid. */
+    public static final int COLUMNS = Utility.WIDTH / Utility.TILE_SIZE;
+
+    /** The number of rows of the grid. */
+    public static final int ROWS = Utility.HEIGHT / Utility.TILE_SIZE;
+
+    /** The tiles of the grid, indexed by row * COLUMNS + column. */
+    private final byte[] tiles;
+
+    /**
+     * Constructs a TileGrid from the walls of a level.
+     *
+     * @param walls the walls of the level
+     */
+    public TileGrid(List<Wall> walls) {
+        tiles = new byte[COLUMNS * ROWS];
+        for (Wall w : walls) {
+            int col = columnOf(w.getX());
+            int row = rowOf(w.getY());
+            if (contains(col, row)) tiles[index(col, row)] = w.isOneWay() ? ONE_WAY : SOLID;
+        }
+    }
+
+    /**
+     * Returns the tile at the given column and row. Tiles outside the grid are empty.
+     *
+     * @param col the column of the tile
+     * @param row the row of the tile
+     * @return the tile type
+     */
+    public byte getTile(int col, int row) {
+        return contains(col, row) ? tiles[index(col, row)] : EMPTY;
+    }
+
+    /**
+     * Changes the tile at the given column and row.
+     *
+     * @param col the column of the tile
+     * @param row the row of the tile
+     * @param tile the new tile type
+     */
+    public void setTile(int col, int row, byte tile) {
+        if (contains(col, row)) tiles[index(col, row)] = tile;
+    }
+
+    /**
+     * Checks if the tile at the given column and row is a solid wall.
+     *
+     * @param col the column of the tile
+     * @param row the row of the tile
+     * @return true if the tile is solid, false otherwise
+     */
+    public boolean isSolid(int col, int row) {
+        return getTile(col, row) == SOLID;
+    }
+
+    /**
+     * Checks if the tile at the given column and row holds what lands on it,
+     * meaning it is either a solid wall or a one-way platform.
+     *
+     * @param col the column of the tile
+     * @param row the row of the tile
+     * @return true if the tile can be stood on, false otherwise
+     */
+    public boolean isWalkable(int col, int row) {
+        return getTile(col, row) != EMPTY;
+    }
+
+    /**
+     * Checks if the given column and row are inside the grid.
+     *
+     * @param col the column
+     * @param row the row
+     * @return true if the tile is inside the grid, false otherwise
+     */
+    public boolean contains(int col, int row) {
+        return col >= 0 && col < COLUMNS && row >= 0 && row < ROWS;
+    }
+
+    /**
+     * Returns the index of a tile in the grid.
+     *
+     * @param col the column of the tile
+     * @param row the row of the tile
+     * @return the index of the tile
+     */
+    public static int index(int col, int row) {
+        return row * COLUMNS + col;
+    }
+
+    /**
+     * Returns the column containing the given x-coordinate.
+     *
+     * @param x the x-coordinate
+     * @return the column
+     */
+    public static int columnOf(double x) {
+        return (int) Math.floor(x / Utility.TILE_SIZE);
+    }
+
+    /**
+     * Returns the row containing the given y-coordinate.
+     *
+     * @param y the y-coordinate
+     * @return the row
+     */
+    public static int rowOf(double y) {
+        return (int) Math.floor(y / Utility.TILE_SIZE);
+    }
+}
@@ -1,5 +1,7 @@
 package Model;
 
+import java.awt.Rectangle;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
@@ -18,23 +20,39 @@ public class Utility {
     /** The size of each tile in the game grid. */
     public static final int TILE_SIZE = 18;
 
+    /** The number of free tiles tried before settling for one that is crowded. */
+    private static final int MAX_ATTEMPTS = 8;
+
+    /** The random generator shared by the utility methods. */
+    private static final Random RANDOM = new Random();
+
     /**
      * Generates a random position within the game area that does not 
      * collide with any existing game objects.
+     * The position is the corner of a tile drawn from the free tiles of the level, 
+     * so walls never need to be checked; only the few objects near the tile are
+     * looked up in the broadphase. After a bounded number of crowded tiles
+     * the last one drawn is used anyway.
+     * The tile is not taken out of the index: the caller does it once the object is spawned.
      *
-     * @param objects a list of game objects to check for collisions
-     * @return an array containing the x and y coordinates of the random position
+     * @param freeTiles the free tiles of the level
+     * @param broadphase the broadphase holding the objects of the level
+     * @return an array containing the x and y coordinates of the random position,
+     *         or null if the level has no free tile left
      */
-    public static int[] randomPosition(List<GameObject> objects) {
-        Random r = new Random();
-        while (true) {
-            int x = r.nextInt(WIDTH);
-            int y = r.nextInt(HEIGHT);
-            
-            // Check if the random position collides with any game object's hitbox
-            if (!objects.stream().anyMatch(obj -> obj.getHitbox().contains(x, y))) {
-                return new int[]{x, y}; // Return the valid random position
-            }
+    public static int[] randomPosition(FreeTileIndex freeTiles, Broadphase broadphase) {
+        List<GameObject> found = new ArrayList<>();
+        Rectangle area = new Rectangle(TILE_SIZE, TILE_SIZE);
+        int tile = -1;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            tile = freeTiles.randomTile(RANDOM);
+            if (tile < 0) break;
+            area.setLocation((tile % TileGrid.COLUMNS) * TILE_SIZE, (tile / TileGrid.COLUMNS) * TILE_SIZE);
+            found.clear();
+            broadphase.query(area, found);
+            if (found.isEmpty()) break;
         }
+        if (tile < 0) return null;
+        return new int[]{(tile % TileGrid.COLUMNS) * TILE_SIZE, (tile / TileGrid.COLUMNS) * TILE_SIZE};
     }
 }
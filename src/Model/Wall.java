@@ -8,6 +8,9 @@ public class Wall extends GameObject {
 
     private WallType type;
 
+    /** Flag bit indicating if the wall is a platform that holds only what lands on it from above. */
+    private static final int ONE_WAY = 1 << 2;
+
 
     /**
      * Enumeration for wall types
@@ -31,8 +34,20 @@ public class Wall extends GameObject {
      */
 
     public Wall(double x, double y, WallType type) {
+        this(x, y, type, false);
+    }
+
+    /**
+     * Wall constructor
+     * @param x
+     * @param y
+     * @param type
+     * @param oneWay true if the wall is a one-way platform, that can be jumped through from below
+     */
+    public Wall(double x, double y, WallType type, boolean oneWay) {
         super(x, y,18,18);
         this.type = type;
+        setFlag(ONE_WAY, oneWay);
     }
 
     /**
@@ -41,4 +56,10 @@ public class Wall extends GameObject {
      */
     public WallType getType() {return type;}
 
+    /**
+     * Checks if the wall is a one-way platform
+     * @return true if the wall is solid only from above
+     */
+    public boolean isOneWay() {return hasFlag(ONE_WAY);}
+
 }
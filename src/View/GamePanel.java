@@ -14,14 +14,17 @@ import javax.swing.JPanel;
 
 import Controller.GameController;
 import Model.Blubba;
-import Model.Boulder;
 import Model.Bubble;
+import Model.ElementBubble;
+import Model.ElementGrid;
 import Model.Enemy;
 import Model.GameObject;
 import Model.Mighta;
 import Model.MovableObject.Direction;
 import Model.Player;
 import Model.PowerUp;
+import Model.ProjectileSystem;
+import Model.TileGrid;
 import Model.Utility;
 import Model.Wall;
 import Model.ZenChan;
@@ -54,6 +57,9 @@ public class GamePanel extends BasePanel {
     private Image[] caughtBlubba;
     private int currentImageIndex;
 
+    private static final Color WATER_COLOR = new Color(40, 110, 255, 170); // The water of the special bubbles
+    private static final Color FIRE_COLOR = new Color(255, 90, 0, 200); // The fire of the special bubbles
+
     /**
      * Constructs a new GamePanel with the specified GameController and Player.
      *
@@ -200,6 +206,7 @@ public class GamePanel extends BasePanel {
         protected void paintComponent(Graphics g) {
             super.paintComponent(g);
             currentImageIndex = (currentImageIndex + 1) % zenChanLeft.length;
+            drawElements(g, gc.getElements());
 
             for (GameObject obj : components) {
                 if (!obj.isVisible()) continue;
@@ -216,10 +223,9 @@ public class GamePanel extends BasePanel {
                     drawBlubba(g, (Blubba) obj);
                 } else if (obj instanceof PowerUp) {
                     drawPowerUp(g, (PowerUp) obj);
-                } else if (obj instanceof Boulder) {
-                    drawBoulder(g, (Boulder) obj);
                 }
             }
+            drawProjectiles(g, gc.getProjectiles());
         }
 
         /**
@@ -301,6 +307,11 @@ public class GamePanel extends BasePanel {
                 i = bubble[currentImageIndex];
             }
             g.drawImage(i, (int) b.getX(), (int) b.getY(), (int) b.getWidth(), (int) b.getHeight(), null);
+            if (b instanceof ElementBubble) {
+                // The element shows through the bubble
+                g.setColor(((ElementBubble) b).getElement() == ElementGrid.WATER ? WATER_COLOR : FIRE_COLOR);
+                g.fillOval((int) b.getX() + 5, (int) b.getY() + 5, (int) b.getWidth() - 10, (int) b.getHeight() - 10);
+            }
         }
 
         /**
@@ -339,14 +350,34 @@ public class GamePanel extends BasePanel {
         }
 
         /**
-         * Draws the specified Boulder object on the provided Graphics context.
+         * Draws the water and the fire running through the tiles of the level.
          *
          * @param g The Graphics context on which to draw.
-         * @param b The Boulder object to draw.
+         * @param elements The elements of the level.
          */
-        private void drawBoulder(Graphics g, Boulder b) {
-            Image i = GameImage.BOULDER.getImage();
-            g.drawImage(i, (int) b.getX(), (int) b.getY(), (int) b.getWidth(), (int) b.getHeight(), null);
+        private void drawElements(Graphics g, ElementGrid elements) {
+            for (int row = 0; row < TileGrid.ROWS; row++) {
+                for (int col = 0; col < TileGrid.COLUMNS; col++) {
+                    byte e = elements.getElement(col, row);
+                    if (e == ElementGrid.NONE) continue;
+                    g.setColor(e == ElementGrid.WATER ? WATER_COLOR : FIRE_COLOR);
+                    g.fillRect(col * Utility.TILE_SIZE, row * Utility.TILE_SIZE, Utility.TILE_SIZE, Utility.TILE_SIZE);
+                }
+            }
+        }
+
+        /**
+         * Draws the shots flying in the level, each with the image named by its pattern.
+         *
+         * @param g The Graphics context on which to draw.
+         * @param shots The projectiles of the level.
+         */
+        private void drawProjectiles(Graphics g, ProjectileSystem shots) {
+            for (int i = 0; i < shots.getCount(); i++) {
+                Image image = GameImage.valueOf(shots.getSprite(i)).getImage();
+                int size = shots.getSize(i);
+                g.drawImage(image, (int) shots.getX(i), (int) shots.getY(i), size, size, null);
+            }
         }
     }
 }